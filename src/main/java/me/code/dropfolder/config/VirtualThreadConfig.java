@@ -0,0 +1,74 @@
+package me.code.dropfolder.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration class running request handling and asynchronous tasks on virtual threads, rather than on
+ * bounded pools of platform threads.
+ * <p>
+ * Uploads and downloads spend most of their time waiting on the network, so with platform threads every slow
+ * client occupies a worker thread for the whole transfer. On virtual threads, a waiting transfer only occupies
+ * memory, so the number of concurrent transfers is no longer capped by the size of a thread pool. It is not capped by
+ * the size of the connection pool either, since {@code spring.jpa.open-in-view} is disabled: a request only holds a
+ * database connection while one of its transactions runs, and releases it before any content is transferred.
+ * <p>
+ * The mode is opted into with {@code dropfolder.threads.virtual.enabled=true}, and requires the application to run
+ * on Java 21 or later (see the {@code java21} Maven profile). Since it may also be built for Java 17, the virtual
+ * thread executor is created reflectively.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dropfolder.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Creates the executor starting a new virtual thread for every task.
+     *
+     * @return The virtual thread executor.
+     * @throws IllegalStateException If the runtime does not support virtual threads.
+     */
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later", exception);
+        }
+    }
+
+    /**
+     * Configures Tomcat to handle every request on a virtual thread.
+     *
+     * @param virtualThreadExecutor The virtual thread executor.
+     * @return The customizer of Tomcat's protocol handler.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the application task executor, which performs asynchronous request processing such as streamed
+     * responses, as well as {@code @Async} methods, with one running every task on a virtual thread.
+     *
+     * @param virtualThreadExecutor The virtual thread executor.
+     * @return The application task executor.
+     */
+    @Bean(name = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+}
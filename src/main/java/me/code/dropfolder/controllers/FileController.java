@@ -1,16 +1,25 @@
 package me.code.dropfolder.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.code.dropfolder.dtos.DeleteFilesDto;
 import me.code.dropfolder.dtos.SuccessDto;
-import me.code.dropfolder.models.File;
-import me.code.dropfolder.security.JwtTokenUtil;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.security.AuthenticatedUser;
 import me.code.dropfolder.utils.FileDownloadBuilderUtil;
 import me.code.dropfolder.services.FileService;
+import me.code.dropfolder.storage.ContentCodec;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Controller class for handling file-related operations such as uploading, downloading, and deletion of files.
  * Provides endpoints under the "/api/file" path.
@@ -20,77 +29,162 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileController {
 
     private final FileService fileService;
-    private final JwtTokenUtil jwtTokenUtil;
 
     /**
      * Constructor for FileController.
      *
-     * @param fileService  The file services to handle file-related business logic.
-     * @param jwtTokenUtil The utility for handling JSON Web Tokens; used for user authentication.
+     * @param fileService The file services to handle file-related business logic.
      */
     @Autowired
-    public FileController(FileService fileService, JwtTokenUtil jwtTokenUtil) {
+    public FileController(FileService fileService) {
         this.fileService = fileService;
-        this.jwtTokenUtil = jwtTokenUtil;
     }
 
     /**
      * Handles file upload to a specified folder.
      *
-     * @param token    The authorization token containing the user's credentials.
+     * @param user     The authenticated user, identified by the verified token.
      * @param folderId The ID of the target folder for the file upload.
      * @param file     The multipart file to be uploaded.
      * @return ResponseEntity containing the SuccessDto.
      */
     @PostMapping("/upload/{folderId}")
     public ResponseEntity<SuccessDto> upload(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable long folderId, @RequestParam("file") MultipartFile file) {
-        long userId = jwtTokenUtil.getTokenUserId(token);
+        long userId = user.id();
 
         SuccessDto result = fileService.upload(userId, folderId, file);
         return result.toResponseEntity();
     }
 
+    /**
+     * Handles uploading several files to a specified folder in one request.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the target folder for the file upload.
+     * @param files    The multipart files to be uploaded.
+     * @return ResponseEntity containing the SuccessDto, which reports the outcome of each file.
+     */
+    @PostMapping("/upload/{folderId}/batch")
+    public ResponseEntity<SuccessDto> uploadBatch(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable long folderId, @RequestParam("files") List<MultipartFile> files) {
+        long userId = user.id();
+
+        SuccessDto result = fileService.uploadBatch(userId, folderId, files);
+        return result.toResponseEntity();
+    }
+
+    /**
+     * Handles file upload to a specified folder, with the content of the file sent as the raw request body.
+     * The name of the file is given by the Content-Disposition header, and its content type by the Content-Type header.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the target folder for the file upload.
+     * @param headers  The headers describing the file to be uploaded.
+     * @param request  The servlet request providing the content of the file.
+     * @return ResponseEntity containing the SuccessDto.
+     * @throws IOException If the request body could not be opened.
+     */
+    @PutMapping("/upload/{folderId}")
+    public ResponseEntity<SuccessDto> upload(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable long folderId,
+            @RequestHeader HttpHeaders headers,
+            HttpServletRequest request) throws IOException {
+        long userId = user.id();
+
+        SuccessDto result = fileService.upload(userId, folderId, headers, request.getInputStream());
+        return result.toResponseEntity();
+    }
+
     /**
      * Handles file download from a specified folder.
      *
-     * @param token    The authorization token containing the user's credentials.
+     * @param user     The authenticated user, identified by the verified token.
      * @param folderId The ID of the target folder for the file download.
      * @param fileId   The ID of the file to be downloaded.
-     * @return ResponseEntity containing the file content as a ByteArrayResource,
-     * including the headers and content types.
+     * @param request  The servlet request, used to hand the transfer over to the container where possible.
+     * @param response The servlet response, to which the content is written directly when sent without blocking.
+     * @return ResponseEntity containing the file content as a file-backed Resource,
+     * including the headers and content types, or {@code null} if the content is sent without blocking
+     * or the client's copy is not modified.
+     * @throws IOException If the content of the file could not be resolved.
      */
     @GetMapping("/download")
-    public ResponseEntity<ByteArrayResource> download(
-            @RequestHeader("Authorization") String token,
+    public ResponseEntity<Resource> download(
+            @AuthenticationPrincipal AuthenticatedUser user,
             @RequestParam long folderId,
-            @RequestParam long fileId) {
-        long userId = jwtTokenUtil.getTokenUserId(token);
+            @RequestParam long fileId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        long userId = user.id();
 
-        File requestedFile = fileService.fetchFileForDownload(userId, folderId, fileId);
-        FileDownloadBuilderUtil builder = new FileDownloadBuilderUtil(requestedFile);
+        FileMetadata requestedFile = fileService.fetchFileForDownload(userId, folderId, fileId);
+        ContentCodec contentEncoding = FileDownloadBuilderUtil.negotiateContentEncoding(requestedFile, request);
+        FileDownloadBuilderUtil builder = new FileDownloadBuilderUtil(
+                requestedFile, contentEncoding, fileService.isCompressible(requestedFile));
 
-        return builder.buildResponseEntity();
+        if (builder.isNotModified(request, response)) {
+            return null;
+        }
+        Resource content = fileService.loadFileContent(requestedFile, contentEncoding);
+        return builder.buildResponseEntity(content, request, response);
     }
 
     /**
      * Handles file deletion from a specified folder.
      *
-     * @param token    The authorization token containing the user's credentials.
+     * @param user     The authenticated user, identified by the verified token.
      * @param folderId The ID of the target folder for the file deletion.
      * @param fileId   The ID of the file to be deleted.
      * @return ResponseEntity containing the SuccessDto.
      */
     @DeleteMapping("/delete")
     public ResponseEntity<SuccessDto> delete(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @RequestParam long folderId,
             @RequestParam long fileId) {
-        long userId = jwtTokenUtil.getTokenUserId(token);
+        long userId = user.id();
 
         SuccessDto result = fileService.delete(userId, folderId, fileId);
         return result.toResponseEntity();
     }
 
-}
\ No newline at end of file
+    /**
+     * Handles deleting several files from a specified folder in one request.
+     *
+     * @param user The authenticated user, identified by the verified token.
+     * @param dto  The DTO containing the folder and the IDs of the files to be deleted.
+     * @return ResponseEntity containing the SuccessDto, which reports the outcome of each file.
+     */
+    @PostMapping("/delete/batch")
+    public ResponseEntity<SuccessDto> deleteBatch(@AuthenticationPrincipal AuthenticatedUser user,
+                                                  @RequestBody DeleteFilesDto dto) {
+        long userId = user.id();
+
+        SuccessDto result = fileService.deleteBatch(userId, dto.folderId(), dto.fileIds());
+        return result.toResponseEntity();
+    }
+
+    /**
+     * Handles restoring a file which has been deleted from a specified folder, until it is purged from the trash.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the folder containing the deleted file.
+     * @param fileId   The ID of the file to be restored.
+     * @return ResponseEntity containing the SuccessDto.
+     */
+    @PostMapping("/restore")
+    public ResponseEntity<SuccessDto> restore(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam long folderId,
+            @RequestParam long fileId) {
+        long userId = user.id();
+
+        SuccessDto result = fileService.restore(userId, folderId, fileId);
+        return result.toResponseEntity();
+    }
+
+}
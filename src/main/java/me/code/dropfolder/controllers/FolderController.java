@@ -2,14 +2,22 @@ package me.code.dropfolder.controllers;
 
 import me.code.dropfolder.dtos.CreateFolderDto;
 import me.code.dropfolder.dtos.SuccessDto;
-import me.code.dropfolder.security.JwtTokenUtil;
+import me.code.dropfolder.models.FolderOwnership;
+import me.code.dropfolder.security.AuthenticatedUser;
 import me.code.dropfolder.services.FolderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
 
 /**
- * Controller class for handling folder-related operations such as folder creation.
+ * Controller class for handling folder-related operations such as folder creation, listing, archiving and deletion.
  * Provides endpoints under the "/api/folder" path.
  */
 @RestController
@@ -17,33 +25,92 @@ import org.springframework.web.bind.annotation.*;
 public class FolderController {
 
     private final FolderService folderService;
-    private final JwtTokenUtil jwtTokenUtil;
 
     /**
      * Constructor for FolderController.
      *
      * @param folderService The folder services to handle folder-related business logic.
-     * @param jwtTokenUtil  The utility for handling JSON Web Tokens; used for user authentication.
      */
     @Autowired
-    public FolderController(FolderService folderService, JwtTokenUtil jwtTokenUtil) {
+    public FolderController(FolderService folderService) {
         this.folderService = folderService;
-        this.jwtTokenUtil = jwtTokenUtil;
     }
 
     /**
      * Handles folder creation.
      *
-     * @param token The authorization token containing the user's credentials.
-     * @param dto   The DTO containing information for creating a folder.
+     * @param user The authenticated user, identified by the verified token.
+     * @param dto  The DTO containing information for creating a folder.
      * @return ResponseEntity containing the success DTO.
      */
     @PostMapping("/create")
-    public ResponseEntity<SuccessDto> create(@RequestHeader("Authorization") String token, @RequestBody CreateFolderDto dto) {
-        long userId = jwtTokenUtil.getTokenUserId(token);
+    public ResponseEntity<SuccessDto> create(@AuthenticationPrincipal AuthenticatedUser user, @RequestBody CreateFolderDto dto) {
+        long userId = user.id();
 
         SuccessDto result = folderService.createFolder(userId, dto.name());
         return result.toResponseEntity();
     }
 
-}
\ No newline at end of file
+    /**
+     * Handles listing the files in a folder, one page at a time.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the folder to be listed.
+     * @param cursor   The cursor returned with the previous page; omitted for the first page.
+     * @param limit    The maximum number of files in the page; omitted for the default page size.
+     * @return ResponseEntity containing the success DTO.
+     */
+    @GetMapping("/{folderId}/files")
+    public ResponseEntity<SuccessDto> listFiles(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable long folderId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        long userId = user.id();
+
+        SuccessDto result = folderService.listFiles(userId, folderId, cursor, limit);
+        return result.toResponseEntity();
+    }
+
+    /**
+     * Handles downloading every file in a folder as a single ZIP archive.
+     * <p>
+     * The archive is streamed while it is being written, so it is never held in memory or on disk as a whole.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the folder to be archived.
+     * @return ResponseEntity streaming the archive of the folder.
+     */
+    @GetMapping("/{folderId}/archive")
+    public ResponseEntity<StreamingResponseBody> archive(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable long folderId) {
+        long userId = user.id();
+
+        FolderOwnership folder = folderService.fetchFolderForArchive(userId, folderId);
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(folder.name() + ".zip", StandardCharsets.UTF_8)
+                .build();
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(output -> folderService.writeArchive(folderId, output));
+    }
+
+    /**
+     * Handles deleting a folder along with all of its files.
+     *
+     * @param user     The authenticated user, identified by the verified token.
+     * @param folderId The ID of the folder to be deleted.
+     * @return ResponseEntity containing the success DTO.
+     */
+    @DeleteMapping("/{folderId}")
+    public ResponseEntity<SuccessDto> delete(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable long folderId) {
+        long userId = user.id();
+
+        SuccessDto result = folderService.deleteFolder(userId, folderId);
+        return result.toResponseEntity();
+    }
+
+}
@@ -0,0 +1,127 @@
+package me.code.dropfolder.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import me.code.dropfolder.dtos.CreateUploadSessionDto;
+import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.security.AuthenticatedUser;
+import me.code.dropfolder.services.UploadSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * Controller class for handling resumable uploads, which transfer the content of a file in separate chunks.
+ * Provides endpoints under the "/api/file/upload/session" path.
+ */
+@RestController
+@RequestMapping("/api/file/upload/session")
+public class UploadSessionController {
+
+    /**
+     * Chunks are received for as long as the client keeps sending them, bounded by the read timeout of the connection.
+     */
+    private static final long NO_TIMEOUT = 0L;
+
+    private final UploadSessionService uploadSessionService;
+
+    /**
+     * Constructor for UploadSessionController.
+     *
+     * @param uploadSessionService The upload session services to handle resumable upload business logic.
+     */
+    @Autowired
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    /**
+     * Handles the start of a resumable upload.
+     *
+     * @param user The authenticated user, identified by the verified token.
+     * @param dto  The DTO describing the file to be uploaded.
+     * @return ResponseEntity containing the SuccessDto.
+     */
+    @PostMapping
+    public ResponseEntity<SuccessDto> create(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestBody CreateUploadSessionDto dto) {
+        long userId = user.id();
+
+        SuccessDto result = uploadSessionService.createSession(userId, dto);
+        return result.toResponseEntity();
+    }
+
+    /**
+     * Handles the upload of a single chunk, sent as the raw request body.
+     * <p>
+     * The chunk is received without blocking: the request is processed asynchronously, and its body is written
+     * into storage as it arrives, after which the response is dispatched with the result.
+     *
+     * @param user       The authenticated user, identified by the verified token.
+     * @param sessionId  The ID of the upload session.
+     * @param chunkIndex The index of the chunk.
+     * @param offset     The offset of the chunk within the file.
+     * @param request    The servlet request providing the content of the chunk.
+     * @throws Exception If asynchronous processing could not be started, or the request body could not be opened.
+     */
+    @PutMapping("/{sessionId}/chunk/{chunkIndex}")
+    public void uploadChunk(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable String sessionId,
+            @PathVariable int chunkIndex,
+            @RequestParam long offset,
+            HttpServletRequest request) throws Exception {
+        long userId = user.id();
+
+        // Non-blocking reads require asynchronous processing to be started before the body is read
+        DeferredResult<ResponseEntity<SuccessDto>> result = new DeferredResult<>(NO_TIMEOUT);
+        WebAsyncUtils.getAsyncManager(request).startDeferredResultProcessing(result);
+
+        uploadSessionService.receiveChunk(userId, sessionId, chunkIndex, offset, request.getInputStream())
+                .whenComplete((dto, failure) -> {
+                    if (failure != null) {
+                        result.setErrorResult(failure);
+                    } else {
+                        result.setResult(dto.toResponseEntity());
+                    }
+                });
+    }
+
+    /**
+     * Handles queries for the state of a resumable upload, including the byte ranges received so far.
+     *
+     * @param user      The authenticated user, identified by the verified token.
+     * @param sessionId The ID of the upload session.
+     * @return ResponseEntity containing the SuccessDto.
+     */
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<SuccessDto> status(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable String sessionId) {
+        long userId = user.id();
+
+        SuccessDto result = uploadSessionService.getSession(userId, sessionId);
+        return result.toResponseEntity();
+    }
+
+    /**
+     * Handles the completion of a resumable upload, creating the file from the received chunks.
+     *
+     * @param user      The authenticated user, identified by the verified token.
+     * @param sessionId The ID of the upload session.
+     * @return ResponseEntity containing the SuccessDto.
+     */
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<SuccessDto> complete(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable String sessionId) {
+        long userId = user.id();
+
+        SuccessDto result = uploadSessionService.completeSession(userId, sessionId);
+        return result.toResponseEntity();
+    }
+
+}
@@ -0,0 +1,13 @@
+package me.code.dropfolder.dtos;
+
+/**
+ * Record representing the data transfer object (DTO) for starting a resumable upload.
+ *
+ * @param folderId    The ID of the folder in which the file will be created.
+ * @param fileName    The name of the file to be uploaded.
+ * @param contentType The content type of the file to be uploaded.
+ * @param size        The total size of the file in bytes.
+ * @param chunkSize   The size of each chunk in bytes, or {@code null} to use the default chunk size.
+ */
+public record CreateUploadSessionDto(long folderId, String fileName, String contentType, long size, Integer chunkSize) {
+}
@@ -0,0 +1,12 @@
+package me.code.dropfolder.dtos;
+
+import java.util.List;
+
+/**
+ * Record representing the data transfer object (DTO) for deleting several files of a folder at once.
+ *
+ * @param folderId The ID of the folder containing the files.
+ * @param fileIds  The IDs of the files to be deleted.
+ */
+public record DeleteFilesDto(long folderId, List<Long> fileIds) {
+}
@@ -0,0 +1,67 @@
+package me.code.dropfolder.dtos.details;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A specialized SuccessDetail class describing the outcome of deleting several files of a folder in one request.
+ * <p>
+ * Every requested file is reported in the order it was requested. A file which was not deleted either does not
+ * belong to the folder or has already been deleted.
+ */
+@Getter
+public class BatchDeletionSuccessDetail extends SuccessDetail {
+
+    @JsonProperty("folderId")
+    private long folderId;
+
+    @JsonProperty("deletedCount")
+    private long deletedCount;
+
+    @JsonProperty("failedCount")
+    private long failedCount;
+
+    @JsonProperty("files")
+    private List<FileResult> files;
+
+    /**
+     * Constructs a BatchDeletionSuccessDetail describing the outcome of each file requested to be deleted.
+     *
+     * @param folderId       The ID of the folder containing the files.
+     * @param requestedIds   The IDs of the files requested to be deleted, in the order they were requested.
+     * @param deletedFileIds The IDs of the files which were deleted.
+     */
+    public BatchDeletionSuccessDetail(long folderId, Collection<Long> requestedIds, Set<Long> deletedFileIds) {
+        this.folderId = folderId;
+        this.files = requestedIds.stream()
+                .map(fileId -> deletedFileIds.contains(fileId)
+                        ? new FileResult(fileId, true, null)
+                        : new FileResult(fileId, false, "Could not find file in the folder, or it is already deleted"))
+                .toList();
+        this.deletedCount = files.stream().filter(FileResult::deleted).count();
+        this.failedCount = files.size() - deletedCount;
+    }
+
+    /**
+     * Checks whether every requested file was deleted.
+     *
+     * @return {@code true} if no file failed, {@code false} otherwise.
+     */
+    public boolean isComplete() {
+        return failedCount == 0;
+    }
+
+    /**
+     * Record representing the outcome of a single requested file.
+     *
+     * @param fileId  The ID of the requested file.
+     * @param deleted Whether the file was deleted.
+     * @param error   The reason the file was not deleted, or {@code null} if it was deleted.
+     */
+    public record FileResult(long fileId, boolean deleted, String error) {
+    }
+}
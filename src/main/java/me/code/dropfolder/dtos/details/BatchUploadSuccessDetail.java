@@ -0,0 +1,85 @@
+package me.code.dropfolder.dtos.details;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A specialized SuccessDetail class describing the outcome of uploading several files to a folder in one request.
+ * <p>
+ * Every attached file is reported in the order it was attached, whether it was uploaded or not, so a client can
+ * retry only the files which failed.
+ */
+@Getter
+public class BatchUploadSuccessDetail extends SuccessDetail {
+
+    @JsonProperty("folderId")
+    private long folderId;
+
+    @JsonProperty("uploadedCount")
+    private long uploadedCount;
+
+    @JsonProperty("failedCount")
+    private long failedCount;
+
+    @JsonProperty("files")
+    private List<FileResult> files;
+
+    /**
+     * Constructs a BatchUploadSuccessDetail describing the outcome of each file uploaded to the given folder.
+     *
+     * @param folderId The ID of the folder to which the files were uploaded.
+     * @param files    The outcome of each attached file, in the order they were attached.
+     */
+    public BatchUploadSuccessDetail(long folderId, List<FileResult> files) {
+        this.folderId = folderId;
+        this.files = files;
+        this.uploadedCount = files.stream().filter(FileResult::uploaded).count();
+        this.failedCount = files.size() - uploadedCount;
+    }
+
+    /**
+     * Checks whether every attached file was uploaded.
+     *
+     * @return {@code true} if no file failed, {@code false} otherwise.
+     */
+    public boolean isComplete() {
+        return failedCount == 0;
+    }
+
+    /**
+     * Record representing the outcome of a single attached file.
+     *
+     * @param attachedFileName The name of the file as it was attached.
+     * @param uploaded         Whether the file was uploaded.
+     * @param fileId           The ID of the uploaded file, or {@code null} if it failed.
+     * @param fileName         The unique name under which the file was saved, or {@code null} if it failed.
+     * @param error            The reason the file failed, or {@code null} if it was uploaded.
+     */
+    public record FileResult(String attachedFileName, boolean uploaded, Long fileId, String fileName, String error) {
+
+        /**
+         * Creates the outcome of a file which was uploaded.
+         *
+         * @param attachedFileName The name of the file as it was attached.
+         * @param fileId           The ID of the uploaded file.
+         * @param fileName         The unique name under which the file was saved.
+         * @return The outcome of the file.
+         */
+        public static FileResult uploaded(String attachedFileName, long fileId, String fileName) {
+            return new FileResult(attachedFileName, true, fileId, fileName, null);
+        }
+
+        /**
+         * Creates the outcome of a file which failed to upload.
+         *
+         * @param attachedFileName The name of the file as it was attached.
+         * @param error            The reason the file failed.
+         * @return The outcome of the file.
+         */
+        public static FileResult failed(String attachedFileName, String error) {
+            return new FileResult(attachedFileName, false, null, null, error);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package me.code.dropfolder.dtos.details;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.FolderOwnership;
 import me.code.dropfolder.models.User;
 
 import java.util.*;
@@ -46,8 +47,10 @@ public class EntitySuccessDetail extends SuccessDetail {
             putUserInfo(user, entityInfo);
         } else if (entity instanceof Folder folder) {
             putFolderInfo(folder, entityInfo);
-        } else if (entity instanceof File file) {
-            putFileInfo(file, entityInfo);
+        } else if (entity instanceof FolderOwnership folder) {
+            putFolderOwnershipInfo(folder, entityInfo);
+        } else if (entity instanceof FileMetadata file) {
+            putFileMetadataInfo(file, entityInfo);
         } else {
             throw new IllegalArgumentException("Unsupported entity type: " + entity.getClass());
         }
@@ -90,26 +93,38 @@ public class EntitySuccessDetail extends SuccessDetail {
     }
 
     /**
-     * Retrieves detailed information about a folder and returns it as a Map.
+     * Puts detailed information about a folder, based on its ownership, into the provided Map.
+     * Only the identifier of its owner is known from the ownership.
      *
-     * @param folder The folder for which details are being generated.
-     * @return A Map containing detailed information about the folder.
+     * @param folder The ownership of the folder for which details are being generated.
+     * @param info   The Map to which folder details are added.
      */
-    private Map<String, Object> getFolderInfo(Folder folder) {
-        Map<String, Object> folderInfo = new LinkedHashMap<>();
-        putFolderInfo(folder, folderInfo);
-        return folderInfo;
+    private void putFolderOwnershipInfo(FolderOwnership folder, Map<String, Object> info) {
+        Map<String, Object> userInfo = new LinkedHashMap<>();
+        userInfo.put("id", folder.ownerId());
+
+        info.put("id", folder.id());
+        info.put("folderName", folder.name());
+        info.put("ownedByUser", userInfo);
     }
 
     /**
-     * Puts detailed information about a file into the provided Map.
+     * Puts detailed information about a file, based on its metadata, into the provided Map.
+     * Only the identifiers of the folder and its owner are known from the metadata.
      *
-     * @param file The file for which details are being generated.
+     * @param file The metadata of the file for which details are being generated.
      * @param info The Map to which file details are added.
      */
-    private void putFileInfo(File file, Map<String, Object> info) {
-        info.put("fileId", file.getId());
-        info.put("fileName", file.getName());
-        info.put("belongsToFolder", getFolderInfo(file.getFolder()));
+    private void putFileMetadataInfo(FileMetadata file, Map<String, Object> info) {
+        Map<String, Object> userInfo = new LinkedHashMap<>();
+        userInfo.put("id", file.ownerId());
+
+        Map<String, Object> folderInfo = new LinkedHashMap<>();
+        folderInfo.put("id", file.folderId());
+        folderInfo.put("ownedByUser", userInfo);
+
+        info.put("fileId", file.id());
+        info.put("fileName", file.name());
+        info.put("belongsToFolder", folderInfo);
     }
 }
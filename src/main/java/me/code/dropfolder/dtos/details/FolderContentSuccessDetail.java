@@ -0,0 +1,54 @@
+package me.code.dropfolder.dtos.details;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import me.code.dropfolder.models.FileMetadata;
+
+import java.util.List;
+
+/**
+ * A specialized SuccessDetail class describing a page of the files contained in a folder.
+ * <p>
+ * Pages are ordered by the IDs of the files. The cursor of the next page is the ID of the last file
+ * in this page, and is {@code null} once the last page has been reached.
+ */
+@Getter
+public class FolderContentSuccessDetail extends SuccessDetail {
+
+    @JsonProperty("folderId")
+    private long folderId;
+
+    @JsonProperty("files")
+    private List<FileEntry> files;
+
+    @JsonProperty("nextCursor")
+    private Long nextCursor;
+
+    /**
+     * Constructs a FolderContentSuccessDetail describing a page of files in the given folder.
+     *
+     * @param folderId The ID of the listed folder.
+     * @param page     The metadata of the files in the page.
+     * @param hasMore  Whether more files follow this page.
+     */
+    public FolderContentSuccessDetail(long folderId, List<FileMetadata> page, boolean hasMore) {
+        this.folderId = folderId;
+        this.files = page.stream().map(FileEntry::new).toList();
+        this.nextCursor = (hasMore && !page.isEmpty()) ? page.get(page.size() - 1).id() : null;
+    }
+
+    /**
+     * Record representing a single file in the listing.
+     *
+     * @param fileId      The ID of the file.
+     * @param fileName    The name of the file.
+     * @param contentType The content type of the file.
+     * @param size        The size of the file content in bytes.
+     */
+    public record FileEntry(long fileId, String fileName, String contentType, long size) {
+
+        private FileEntry(FileMetadata file) {
+            this(file.id(), file.name(), file.contentType(), file.size());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package me.code.dropfolder.dtos.details;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import me.code.dropfolder.models.UploadSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A specialized SuccessDetail class describing the state of a resumable upload.
+ * <p>
+ * Besides the parameters of the upload, it lists the byte ranges received so far and the indexes
+ * of the chunks that are still missing, which is all a client needs to resume an interrupted upload.
+ */
+@Getter
+public class UploadSessionSuccessDetail extends SuccessDetail {
+
+    @JsonProperty("sessionId")
+    private String sessionId;
+
+    @JsonProperty("folderId")
+    private long folderId;
+
+    @JsonProperty("fileName")
+    private String fileName;
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("chunkSize")
+    private int chunkSize;
+
+    @JsonProperty("chunkCount")
+    private int chunkCount;
+
+    @JsonProperty("receivedRanges")
+    private List<ByteRange> receivedRanges;
+
+    @JsonProperty("missingChunks")
+    private List<Integer> missingChunks;
+
+    /**
+     * Constructs an UploadSessionSuccessDetail describing the given upload session.
+     *
+     * @param session The upload session to describe.
+     */
+    public UploadSessionSuccessDetail(UploadSession session) {
+        this.sessionId = session.getId();
+        this.folderId = session.getFolderId();
+        this.fileName = session.getFileName();
+        this.size = session.getSize();
+        this.chunkSize = session.getChunkSize();
+        this.chunkCount = session.getChunkCount();
+        this.receivedRanges = new ArrayList<>();
+        this.missingChunks = new ArrayList<>();
+        collectChunkState(session);
+    }
+
+    /**
+     * Walks through the chunks of the session, coalescing adjacent received chunks into byte ranges
+     * and collecting the indexes of the missing ones.
+     *
+     * @param session The upload session to describe.
+     */
+    private void collectChunkState(UploadSession session) {
+        long rangeStart = -1;
+
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            if (session.getReceivedChunks().contains(chunkIndex)) {
+                if (rangeStart == -1) {
+                    rangeStart = session.getChunkOffset(chunkIndex);
+                }
+            } else {
+                closeRange(rangeStart, session.getChunkOffset(chunkIndex));
+                rangeStart = -1;
+                missingChunks.add(chunkIndex);
+            }
+        }
+        closeRange(rangeStart, size);
+    }
+
+    /**
+     * Adds the range of received bytes ending right before the given offset, if a range is open.
+     *
+     * @param rangeStart The offset at which the open range starts, or {@code -1} if no range is open.
+     * @param rangeEnd   The offset right after the last byte of the range.
+     */
+    private void closeRange(long rangeStart, long rangeEnd) {
+        if (rangeStart != -1) {
+            receivedRanges.add(new ByteRange(rangeStart, rangeEnd - 1));
+        }
+    }
+
+    /**
+     * Record representing an inclusive range of received bytes.
+     *
+     * @param start The offset of the first byte in the range.
+     * @param end   The offset of the last byte in the range.
+     */
+    public record ByteRange(long start, long end) {
+    }
+}
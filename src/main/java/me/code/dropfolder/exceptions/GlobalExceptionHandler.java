@@ -99,7 +99,8 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler({
             CouldNotFindUserException.class,
             CouldNotFindFolderException.class,
-            CouldNotFindFileException.class})
+            CouldNotFindFileException.class,
+            CouldNotFindUploadSessionException.class})
     public ResponseEntity<ErrorDto> handleNotFoundException(Exception exception) {
         return buildResponseEntity(HttpStatus.NOT_FOUND, exception);
     }
@@ -112,7 +113,8 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler({
             FileDownloadFailureException.class,
-            FileDeletionFailureException.class})
+            FileDeletionFailureException.class,
+            FileRestoreFailureException.class})
     public ResponseEntity<ErrorDto> handleFileOperationsFailureException(FileOperationException exception) {
         FileOperationErrorDetail operationError = exception.getFileOperationErrorDetail();
         return buildResponseEntity(HttpStatus.BAD_REQUEST, exception, operationError);
@@ -136,7 +138,11 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      * @param exception The folder operation exceptions to be handled.
      * @return A ResponseEntity containing an ErrorDto with details about the folder operation exceptions.
      */
-    @ExceptionHandler({FolderCreationFailureException.class})
+    @ExceptionHandler({
+            FolderCreationFailureException.class,
+            FolderListingFailureException.class,
+            FolderArchiveFailureException.class,
+            FolderDeletionFailureException.class})
     public ResponseEntity<ErrorDto> handleFolderOperationsFailureException(FolderOperationException exception) {
         FolderOperationErrorDetail operationError = exception.getFolderOperationErrorDetail();
         return buildResponseEntity(HttpStatus.BAD_REQUEST, exception, operationError);
@@ -26,9 +26,21 @@ public class FileUploadErrorDetail extends ErrorDetail {
      * @param exception The exceptions associated with the file upload failure.
      */
     public FileUploadErrorDetail(MultipartFile file, Exception exception) {
-        this.rejectedFileName = file.getOriginalFilename();
-        this.rejectedContentType = file.getContentType();
-        this.rejectedSize = file.getSize();
+        this(file.getOriginalFilename(), file.getContentType(), file.getSize(), exception);
+    }
+
+    /**
+     * Constructs a FileUploadErrorDetail with the specified rejected file information and exceptions details.
+     *
+     * @param fileName    The name of the file that was rejected during upload.
+     * @param contentType The content type of the file that was rejected during upload.
+     * @param size        The size of the file that was rejected during upload.
+     * @param exception   The exceptions associated with the file upload failure.
+     */
+    public FileUploadErrorDetail(String fileName, String contentType, Long size, Exception exception) {
+        this.rejectedFileName = fileName;
+        this.rejectedContentType = contentType;
+        this.rejectedSize = size;
         this.message = exception.getLocalizedMessage();
     }
 }
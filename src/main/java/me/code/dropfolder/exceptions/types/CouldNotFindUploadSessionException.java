@@ -0,0 +1,16 @@
+package me.code.dropfolder.exceptions.types;
+
+/**
+ * Exception class representing a scenario where a requested upload session could not be found.
+ */
+public class CouldNotFindUploadSessionException extends RuntimeException {
+
+    /**
+     * Constructs a CouldNotFindUploadSessionException with the specified details message.
+     *
+     * @param message the details message.
+     */
+    public CouldNotFindUploadSessionException(String message) {
+        super(message);
+    }
+}
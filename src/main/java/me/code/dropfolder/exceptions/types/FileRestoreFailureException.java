@@ -0,0 +1,20 @@
+package me.code.dropfolder.exceptions.types;
+
+import me.code.dropfolder.exceptions.dtos.details.FileOperationErrorDetail;
+
+/**
+ * Exception class representing a failure in restoring a file from the trash.
+ * This exceptions is thrown when there is an issue during the file restore operation and includes details about the error.
+ */
+public class FileRestoreFailureException extends FileOperationException {
+
+    /**
+     * Constructs a FileRestoreFailureException with the specified details message and restore error details.
+     *
+     * @param message      the details message.
+     * @param restoreError the detailed information about the error during file restore.
+     */
+    public FileRestoreFailureException(String message, FileOperationErrorDetail restoreError) {
+        super(message, restoreError);
+    }
+}
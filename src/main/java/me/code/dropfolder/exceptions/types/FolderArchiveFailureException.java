@@ -0,0 +1,21 @@
+package me.code.dropfolder.exceptions.types;
+
+import me.code.dropfolder.exceptions.dtos.details.FolderOperationErrorDetail;
+
+/**
+ * Exception class representing a failure in archiving the contents of a folder.
+ * This exceptions is thrown when there is an issue before the archive of a folder is streamed and includes details
+ * about the error.
+ */
+public class FolderArchiveFailureException extends FolderOperationException {
+
+    /**
+     * Constructs a FolderArchiveFailureException with the specified details message and folder archive error details.
+     *
+     * @param message      the details message.
+     * @param archiveError the detailed information about the error during folder archiving.
+     */
+    public FolderArchiveFailureException(String message, FolderOperationErrorDetail archiveError) {
+        super(message, archiveError);
+    }
+}
@@ -0,0 +1,20 @@
+package me.code.dropfolder.exceptions.types;
+
+import me.code.dropfolder.exceptions.dtos.details.FolderOperationErrorDetail;
+
+/**
+ * Exception class representing a failure in deleting a folder.
+ * This exceptions is thrown when there is an issue during the deletion of a folder and includes details about the error.
+ */
+public class FolderDeletionFailureException extends FolderOperationException {
+
+    /**
+     * Constructs a FolderDeletionFailureException with the specified details message and folder deletion error details.
+     *
+     * @param message       the details message.
+     * @param deletionError the detailed information about the error during folder deletion.
+     */
+    public FolderDeletionFailureException(String message, FolderOperationErrorDetail deletionError) {
+        super(message, deletionError);
+    }
+}
@@ -0,0 +1,20 @@
+package me.code.dropfolder.exceptions.types;
+
+import me.code.dropfolder.exceptions.dtos.details.FolderOperationErrorDetail;
+
+/**
+ * Exception class representing a failure in listing the contents of a folder.
+ * This exceptions is thrown when there is an issue during the listing of a folder and includes details about the error.
+ */
+public class FolderListingFailureException extends FolderOperationException {
+
+    /**
+     * Constructs a FolderListingFailureException with the specified details message and folder listing error details.
+     *
+     * @param message      the details message.
+     * @param listingError the detailed information about the error during folder listing.
+     */
+    public FolderListingFailureException(String message, FolderOperationErrorDetail listingError) {
+        super(message, listingError);
+    }
+}
@@ -0,0 +1,49 @@
+package me.code.dropfolder.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import me.code.dropfolder.storage.ContentCodec;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Entity class counting the files which reference a piece of content in the blob store.
+ * <p>
+ * Since identical content is only stored once, several files may share the same blob. The content is
+ * only removed from the blob store once the last file referencing it has been deleted.
+ * <p>
+ * The codec in which the content is stored is decided by the upload storing it first, and is shared by every
+ * file referencing it.
+ */
+@Entity
+@Table(name = "blob_references")
+@Getter
+@NoArgsConstructor
+public class BlobReference {
+
+    @Id
+    @Column(name = "blob_key", length = 64)
+    private String key;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    /**
+     * The codec in which the content is kept in the blob store.
+     * Content stored before compression was introduced is stored verbatim.
+     */
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'IDENTITY'")
+    @Column(name = "codec", nullable = false, length = 16)
+    private ContentCodec codec;
+
+    /**
+     * The size of the content as it is kept in the blob store, which differs from its size once compressed.
+     */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+}
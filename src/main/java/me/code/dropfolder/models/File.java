@@ -4,22 +4,36 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.springframework.web.multipart.MultipartFile;
+import me.code.dropfolder.storage.ContentCodec;
+import org.hibernate.annotations.ColumnDefault;
 
-import java.io.IOException;
+import java.time.Instant;
 
 /**
  * Entity class representing a file in the system.
+ * <p>
+ * The names of files are unique within their folder, which is enforced by the database. The unique constraint also
+ * indexes the lookups of files by folder and name, while the files of a folder are listed in order of their IDs
+ * through a separate index.
+ * <p>
+ * Deleted files are moved to the trash, where they keep their name and content until they are either restored or
+ * purged. The name of a trashed file stays reserved within its folder, so it is restored under the same name.
+ * Trashed files are found for purging through an index on the moment they were deleted.
  */
 @Entity
-@Table(name = "files")
+@Table(name = "files",
+        uniqueConstraints = @UniqueConstraint(name = "uk_files_folder_id_name", columnNames = {"folder_id", "name"}),
+        indexes = {
+                @Index(name = "idx_files_folder_id_id", columnList = "folder_id, id"),
+                @Index(name = "idx_files_deleted_at", columnList = "deleted_at")})
 @Getter
 @Setter
 @NoArgsConstructor
 public class File {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "files_seq")
+    @SequenceGenerator(name = "files_seq", sequenceName = "files_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "name", nullable = false)
@@ -31,30 +45,73 @@ public class File {
     @Column(name = "size", nullable = false)
     private Long size;
 
-    @Lob
-    @Column(name = "data", nullable = false)
-    private byte[] data;
+    /**
+     * The key under which the content of the file is kept in the blob store.
+     * Only the metadata of a file is stored in the database.
+     * <p>
+     * The column is not mapped as {@code NOT NULL}, since it could not be added to a populated table that way. It is
+     * made {@code NOT NULL} by {@link me.code.dropfolder.services.LegacyContentMigration} once the content of every
+     * file has been moved out of the database.
+     */
+    @Column(name = "blob_key", length = 64)
+    private String blobKey;
+
+    /**
+     * The codec in which the content of the file is kept in the blob store, as recorded by its blob reference.
+     */
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'IDENTITY'")
+    @Column(name = "codec", nullable = false, length = 16)
+    private ContentCodec codec;
+
+    /**
+     * The size of the content as it is kept in the blob store, which is smaller than its size once compressed.
+     */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    /**
+     * The moment the file was uploaded, which is when its content last changed.
+     * Files uploaded before this was recorded have no upload time.
+     */
+    @Column(name = "uploaded_at")
+    private Instant uploadedAt;
+
+    /**
+     * The moment the file was moved to the trash, or {@code null} if it has not been deleted.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
 
     /**
      * The folder to which the file belongs, all files have a column with "folder_id".
+     * It is fetched lazily, since most operations only need the metadata of the file itself.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "folder_id")
     private Folder folder;
 
     /**
-     * Constructor for creating a File entity from a multipart file and connecting it to a folder.
+     * Constructor for creating a File entity for stored content and connecting it to a folder.
      *
-     * @param file   The multipart file from which to create the File entity.
-     * @param folder The folder to which the file belongs.
-     * @throws IOException If an I/O error occurs while reading the file data.
+     * @param name        The name of the file.
+     * @param contentType The content type of the file.
+     * @param size        The size of the file content in bytes.
+     * @param blobKey     The key under which the content of the file is kept in the blob store.
+     * @param codec       The codec in which the content of the file is kept in the blob store.
+     * @param storedSize  The size of the content as it is kept in the blob store.
+     * @param folder      The folder to which the file belongs.
      */
-    public File(MultipartFile file, Folder folder) throws IOException {
-        this.name = file.getOriginalFilename();
-        this.contentType = file.getContentType();
-        this.size = file.getSize();
-        this.data = file.getBytes();
+    public File(String name, String contentType, long size, String blobKey,
+                ContentCodec codec, long storedSize, Folder folder) {
+        this.name = name;
+        this.contentType = contentType;
+        this.size = size;
+        this.blobKey = blobKey;
+        this.codec = codec;
+        this.storedSize = storedSize;
         this.folder = folder;
+        this.uploadedAt = Instant.now();
     }
 
 }
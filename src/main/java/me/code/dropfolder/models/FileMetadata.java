@@ -0,0 +1,27 @@
+package me.code.dropfolder.models;
+
+import me.code.dropfolder.storage.ContentCodec;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a {@link File}, holding only the metadata needed for permission checks and responses.
+ * <p>
+ * It is selected directly by the repository, so neither the folder nor the user owning the file is loaded,
+ * and the content of the file is only resolved from the blob store once it is actually streamed.
+ *
+ * @param id          The unique identifier of the file.
+ * @param name        The name of the file.
+ * @param contentType The content type of the file.
+ * @param size        The size of the file content in bytes.
+ * @param blobKey     The key under which the content of the file is kept in the blob store.
+ * @param codec       The codec in which the content of the file is kept in the blob store.
+ * @param storedSize  The size of the content as it is kept in the blob store.
+ * @param uploadedAt  The moment the file was uploaded.
+ * @param folderId    The unique identifier of the folder to which the file belongs.
+ * @param ownerId     The unique identifier of the user owning that folder.
+ */
+public record FileMetadata(long id, String name, String contentType, long size,
+                           String blobKey, ContentCodec codec, Long storedSize, Instant uploadedAt,
+                           long folderId, long ownerId) {
+}
@@ -10,16 +10,21 @@ import java.util.List;
 
 /**
  * Entity class representing a folder in the system.
+ * <p>
+ * The names of folders are unique per user, which is enforced by the database. The unique constraint also indexes
+ * the lookups of folders by user and name, while ownership checks look folders up by their primary key.
  */
 @Entity
-@Table(name = "folders")
+@Table(name = "folders",
+        uniqueConstraints = @UniqueConstraint(name = "uk_folders_user_id_name", columnNames = {"user_id", "name"}))
 @Getter
 @Setter
 @NoArgsConstructor
 public class Folder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folders_seq")
+    @SequenceGenerator(name = "folders_seq", sequenceName = "folders_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "name", nullable = false)
@@ -35,10 +40,11 @@ public class Folder {
     /**
      * The list of files contained in the folder.
      * <p>
-     * Important Note: Since each folder has a CascadeType.ALL & orphan removal association with its files,
-     * removing a folder will result in the removal of all files belonging to that folder.
+     * Important Note: The association does not cascade, since cascading would load every file of the folder into
+     * memory to delete them one by one. Folders are deleted with set-based statements instead, see
+     * {@link me.code.dropfolder.services.FolderService#deleteFolder(long, long)}.
      */
-    @OneToMany(mappedBy = "folder", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "folder")
     private List<File> files;
 
     /**
@@ -0,0 +1,14 @@
+package me.code.dropfolder.models;
+
+/**
+ * Read-only projection of a {@link Folder}, holding only what is needed to check who owns it.
+ * <p>
+ * It is selected directly by the repository from the row of the folder, whose owner is only known by the
+ * {@code user_id} column, so the user owning the folder is never loaded.
+ *
+ * @param id      The unique identifier of the folder.
+ * @param name    The name of the folder.
+ * @param ownerId The unique identifier of the user owning the folder.
+ */
+public record FolderOwnership(long id, String name, long ownerId) {
+}
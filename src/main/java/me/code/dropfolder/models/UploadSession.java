@@ -0,0 +1,133 @@
+package me.code.dropfolder.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Entity class representing a resumable upload in progress.
+ * <p>
+ * The content of the upload is sent in fixed-size chunks, each of which is written into a staging file
+ * at its own offset. The session keeps track of which chunks have been received, so that an interrupted
+ * upload can be resumed by only sending the missing chunks.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@NoArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /**
+     * The user who initiated the upload and who is the only one allowed to send its chunks.
+     */
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    /**
+     * The folder in which the file will be created once the upload is finalized.
+     */
+    @Column(name = "folder_id", nullable = false)
+    private long folderId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * The moment from which the upload is being completed, which claims it for a single completion,
+     * or {@code null} if it is not being completed.
+     */
+    @Column(name = "completing_since")
+    private LocalDateTime completingSince;
+
+    /**
+     * The indexes of the chunks that have been received so far.
+     */
+    @ElementCollection
+    @CollectionTable(name = "upload_session_chunks",
+            joinColumns = @JoinColumn(name = "session_id"),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "chunk_index"}))
+    @Column(name = "chunk_index", nullable = false)
+    private Set<Integer> receivedChunks;
+
+    /**
+     * Constructs a new UploadSession for a file of the given size, to be uploaded in chunks of the given size.
+     *
+     * @param userId      The ID of the user initiating the upload.
+     * @param folderId    The ID of the folder in which the file will be created.
+     * @param fileName    The name of the file being uploaded.
+     * @param contentType The content type of the file being uploaded.
+     * @param size        The total size of the file in bytes.
+     * @param chunkSize   The size of each chunk in bytes; only the last chunk may be smaller.
+     */
+    public UploadSession(long userId, long folderId, String fileName, String contentType, long size, int chunkSize) {
+        this.id = UUID.randomUUID().toString();
+        this.userId = userId;
+        this.folderId = folderId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.createdAt = LocalDateTime.now();
+        this.receivedChunks = new HashSet<>();
+    }
+
+    /**
+     * Returns the number of chunks that make up the complete upload.
+     *
+     * @return The number of chunks.
+     */
+    public int getChunkCount() {
+        return (int) ((size + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Returns the offset in bytes at which the chunk with the given index starts.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @return The offset of the chunk.
+     */
+    public long getChunkOffset(int chunkIndex) {
+        return (long) chunkIndex * chunkSize;
+    }
+
+    /**
+     * Returns the expected length in bytes of the chunk with the given index.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @return The length of the chunk.
+     */
+    public long getChunkLength(int chunkIndex) {
+        return Math.min(chunkSize, size - getChunkOffset(chunkIndex));
+    }
+
+    /**
+     * Checks whether every chunk of the upload has been received.
+     *
+     * @return {@code true} if the upload is complete, {@code false} otherwise.
+     */
+    public boolean isComplete() {
+        return receivedChunks.size() == getChunkCount();
+    }
+
+}
@@ -24,7 +24,8 @@ import java.util.List;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "username", unique = true, nullable = false)
@@ -36,10 +37,11 @@ public class User implements UserDetails {
     /**
      * A list of folders belonging to the user.
      * <p>
-     * Important Note: Since each user has a CascadeType.ALL & orphan removal association with its folders,
-     * removing a user will result in the removal of all folders and by extension all files belonging to that user.
+     * Important Note: The association does not cascade, since cascading would load every folder and file of the
+     * user into memory to delete them one by one. Users are deleted with set-based statements instead, see
+     * {@link me.code.dropfolder.utils.JpQueryUtil#deleteUser(String)}.
      */
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private List<Folder> folders;
 
     /**
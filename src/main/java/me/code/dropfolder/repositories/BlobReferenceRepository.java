@@ -0,0 +1,46 @@
+package me.code.dropfolder.repositories;
+
+import me.code.dropfolder.models.BlobReference;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Repository interface for performing CRUD operations on BlobReference entities in the database.
+ * Extends JpaRepository to inherit basic CRUD functionality.
+ * <p>
+ * The reference counts are updated with single atomic statements, which lock the affected row until the
+ * surrounding transaction ends. This serializes concurrent uploads and deletions of identical content.
+ */
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, String> {
+
+    /**
+     * Acquires a reference to content, recording the codec in which it is stored if it is not stored yet.
+     * The codec is passed by its name, which is how it is mapped by the entity.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO blob_references (blob_key, size, codec, stored_size, ref_count)" +
+            " VALUES (:key, :size, :codec, :storedSize, 1)" +
+            " ON CONFLICT (blob_key) DO UPDATE SET ref_count = blob_references.ref_count + 1", nativeQuery = true)
+    void acquireReference(String key, long size, String codec, long storedSize);
+
+    /**
+     * Records content which is about to be stored without referencing it, unless it is already recorded, so that it
+     * is reclaimed if no reference to it is ever committed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO blob_references (blob_key, size, codec, stored_size, ref_count)" +
+            " VALUES (:key, :size, :codec, :storedSize, 0)" +
+            " ON CONFLICT (blob_key) DO NOTHING", nativeQuery = true)
+    void reserveReference(String key, long size, String codec, long storedSize);
+
+    @Modifying
+    @Query("DELETE FROM BlobReference b WHERE b.key = :key AND b.refCount <= 0")
+    int deleteIfUnreferenced(String key);
+
+    @Query("SELECT b.key FROM BlobReference b WHERE b.refCount <= 0 AND b.key > :afterKey ORDER BY b.key")
+    List<String> findUnreferencedKeys(String afterKey, Pageable page);
+}
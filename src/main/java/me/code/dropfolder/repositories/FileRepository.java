@@ -1,10 +1,17 @@
 package me.code.dropfolder.repositories;
 
 import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,15 +22,116 @@ public interface FileRepository extends JpaRepository<File, Long> {
 
     Optional<File> findById(long id);
 
+    @Query("SELECT new me.code.dropfolder.models.FileMetadata(f.id, f.name, f.contentType, f.size, f.blobKey, " +
+            "f.codec, f.storedSize, f.uploadedAt, fo.id, fo.user.id) FROM File f JOIN f.folder fo WHERE f.id = :fileId AND f.deletedAt IS NULL")
+    Optional<FileMetadata> findMetadataById(long fileId);
+
+    @Query("SELECT new me.code.dropfolder.models.FileMetadata(f.id, f.name, f.contentType, f.size, f.blobKey, " +
+            "f.codec, f.storedSize, f.uploadedAt, fo.id, fo.user.id) FROM File f JOIN f.folder fo WHERE f.id = :fileId AND f.deletedAt IS NOT NULL")
+    Optional<FileMetadata> findTrashedMetadataById(long fileId);
+
+    /**
+     * Seeks the metadata of the files in a folder following the given file ID, in order of their IDs.
+     * The size of the page is taken from the pageable, whose offset is expected to be zero.
+     */
+    @Query("SELECT new me.code.dropfolder.models.FileMetadata(f.id, f.name, f.contentType, f.size, f.blobKey, " +
+            "f.codec, f.storedSize, f.uploadedAt, fo.id, fo.user.id) FROM File f JOIN f.folder fo WHERE fo.id = :folderId AND f.id > :afterId AND f.deletedAt IS NULL ORDER BY f.id")
+    List<FileMetadata> findMetadataByFolderIdAfter(long folderId, long afterId, Pageable page);
+
     @Query("SELECT f FROM File f WHERE f.folder = :folder AND f.name = :name")
     Optional<File> findByFolderAndName(Folder folder, String name);
 
     @Query("SELECT f.id FROM File f WHERE f.name = :fileName")
     Optional<Long> findFileId(String fileName);
 
+    /**
+     * Checks whether a file name is taken within a folder, including by a file in the trash.
+     */
     @Query("SELECT CASE WHEN COUNT(fi) > 0 THEN true ELSE false END FROM File fi WHERE fi.folder = :folder AND fi.name = :fileName")
     boolean isPreexistingFile(Folder folder, String fileName);
 
-    @Query("SELECT CASE WHEN COUNT(fi) > 0 THEN true ELSE false END FROM File fi WHERE fi.id = :fileId AND fi.folder = :folder")
-    boolean isFilePartOfFolder(long fileId, Folder folder);
+    /**
+     * Resolves the numeric suffix which makes a file name unique within a folder: {@code 0} if the name itself is
+     * free, otherwise one more than the highest suffix in use. The suffix pattern must capture the suffix of a name.
+     * Files in the trash are counted on purpose: their names stay reserved until they are purged, just as the
+     * unique constraint on folder and name covers them, so a restored file never collides with a newer file.
+     */
+    @Query(value = "SELECT CASE WHEN bool_or(f.name = :name)" +
+            " THEN COALESCE(MAX(CAST(substring(f.name FROM :suffixPattern) AS integer)), 1) + 1 ELSE 0 END" +
+            " FROM files f WHERE f.folder_id = :folderId AND (f.name = :name OR f.name ~ :suffixPattern)",
+            nativeQuery = true)
+    int findFreeNameSuffix(long folderId, String name, String suffixPattern);
+
+    /**
+     * Deletes every file of a user in one statement, without loading the files as entities, and releases the
+     * references held by the deleted files by the number of files referencing each blob.
+     * <p>
+     * The references are released from the rows the statement actually deleted, so a file deleted concurrently by
+     * another statement is never released twice. Blobs which are no longer referenced are left for
+     * {@link BlobReferenceRepository#findUnreferencedKeys} to find. Like {@link #trashFilesInFolder}, the statement
+     * produces a result set, the number of deleted files, so it runs as a query in a transaction declared explicitly.
+     */
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM files f" +
+            " WHERE f.folder_id IN (SELECT fo.id FROM folders fo WHERE fo.user_id = :userId) RETURNING f.blob_key)," +
+            " released AS (UPDATE blob_references b SET ref_count = b.ref_count - d.file_count" +
+            " FROM (SELECT blob_key, COUNT(*) AS file_count FROM deleted GROUP BY blob_key) d" +
+            " WHERE b.blob_key = d.blob_key)" +
+            " SELECT COUNT(*) FROM deleted", nativeQuery = true)
+    long deleteAndReleaseFilesByUserId(long userId);
+
+    /**
+     * Deletes every file in a folder in one statement, releasing the references held by the deleted files
+     * the same way as {@link #deleteAndReleaseFilesByUserId}.
+     */
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM files f WHERE f.folder_id = :folderId RETURNING f.blob_key)," +
+            " released AS (UPDATE blob_references b SET ref_count = b.ref_count - d.file_count" +
+            " FROM (SELECT blob_key, COUNT(*) AS file_count FROM deleted GROUP BY blob_key) d" +
+            " WHERE b.blob_key = d.blob_key)" +
+            " SELECT COUNT(*) FROM deleted", nativeQuery = true)
+    long deleteAndReleaseFilesByFolderId(long folderId);
+
+    /**
+     * Moves a file to the trash, unless it is already there.
+     */
+    @Modifying
+    @Query("UPDATE File f SET f.deletedAt = :deletedAt WHERE f.id = :fileId AND f.deletedAt IS NULL")
+    int trashFileById(long fileId, Instant deletedAt);
+
+    /**
+     * Moves the given files of a folder to the trash in one statement, skipping files which belong to another folder
+     * or are already in the trash, and returns the IDs of the files which were moved.
+     * <p>
+     * This is not declared as {@code @Modifying}, since a modifying query is executed as an update which must not
+     * return rows, while {@code RETURNING} makes the statement produce a result set that has to be read as a query.
+     * It therefore neither clears the persistence context, so it must not be combined with loading the affected files
+     * as entities, nor defaults to a writable transaction, which is declared explicitly instead.
+     */
+    @Transactional
+    @Query(value = "UPDATE files SET deleted_at = :deletedAt" +
+            " WHERE folder_id = :folderId AND id IN (:fileIds) AND deleted_at IS NULL RETURNING id", nativeQuery = true)
+    List<Long> trashFilesInFolder(long folderId, Collection<Long> fileIds, Instant deletedAt);
+
+    /**
+     * Restores a file from the trash, unless it is not there.
+     */
+    @Modifying
+    @Query("UPDATE File f SET f.deletedAt = NULL WHERE f.id = :fileId AND f.deletedAt IS NOT NULL")
+    int restoreFileById(long fileId);
+
+    @Query("SELECT f.id FROM File f WHERE f.deletedAt < :deletedBefore ORDER BY f.deletedAt")
+    List<Long> findTrashedIdsBefore(Instant deletedBefore, Pageable page);
+
+    /**
+     * Deletes the given files in one statement, releasing the references held by the deleted files
+     * the same way as {@link #deleteAndReleaseFilesByUserId}.
+     */
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM files f WHERE f.id IN (:fileIds) RETURNING f.blob_key)," +
+            " released AS (UPDATE blob_references b SET ref_count = b.ref_count - d.file_count" +
+            " FROM (SELECT blob_key, COUNT(*) AS file_count FROM deleted GROUP BY blob_key) d" +
+            " WHERE b.blob_key = d.blob_key)" +
+            " SELECT COUNT(*) FROM deleted", nativeQuery = true)
+    long deleteAndReleaseFilesByIds(List<Long> fileIds);
 }
@@ -1,8 +1,10 @@
 package me.code.dropfolder.repositories;
 
 import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.FolderOwnership;
 import me.code.dropfolder.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
@@ -15,12 +17,41 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
 
     Optional<Folder> findById(long id);
 
+    /**
+     * Selects the ownership of a folder by its primary key, reading its owner from the {@code user_id} column
+     * without joining or loading the user.
+     */
+    @Query("SELECT new me.code.dropfolder.models.FolderOwnership(f.id, f.name, f.user.id)" +
+            " FROM Folder f WHERE f.id = :folderId")
+    Optional<FolderOwnership> findOwnershipById(long folderId);
+
     @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Folder f WHERE f.user = :user AND f.name = :name")
     boolean isPreexistingFolder(User user, String name);
 
+    /**
+     * Resolves the numeric suffix which makes a folder name unique for a user: {@code 0} if the name itself is
+     * free, otherwise one more than the highest suffix in use. The suffix pattern must capture the suffix of a name.
+     */
+    @Query(value = "SELECT CASE WHEN bool_or(f.name = :name)" +
+            " THEN COALESCE(MAX(CAST(substring(f.name FROM :suffixPattern) AS integer)), 1) + 1 ELSE 0 END" +
+            " FROM folders f WHERE f.user_id = :userId AND (f.name = :name OR f.name ~ :suffixPattern)",
+            nativeQuery = true)
+    int findFreeNameSuffix(long userId, String name, String suffixPattern);
+
     @Query("SELECT f FROM Folder f WHERE f.user = :user AND f.name = :name")
     Optional<Folder> findIdByUserAndFolderName(User user, String name);
 
-    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Folder f WHERE f.user = :user AND f.id = :folderId")
-    boolean isUserOwnerOfTargetFolder(User user, long folderId);
+    /**
+     * Deletes every folder of a user in one statement, which requires their files to have been deleted first.
+     */
+    @Modifying
+    @Query("DELETE FROM Folder f WHERE f.user.id = :userId")
+    int deleteFoldersByUserId(long userId);
+
+    /**
+     * Deletes a folder without loading it as an entity, which requires its files to have been deleted first.
+     */
+    @Modifying
+    @Query("DELETE FROM Folder f WHERE f.id = :folderId")
+    int deleteFolderById(long folderId);
 }
@@ -0,0 +1,53 @@
+package me.code.dropfolder.repositories;
+
+import me.code.dropfolder.models.UploadSession;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for performing CRUD operations on UploadSession entities in the database.
+ * Extends JpaRepository to inherit basic CRUD functionality.
+ */
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    @EntityGraph(attributePaths = "receivedChunks")
+    Optional<UploadSession> findWithReceivedChunksById(String id);
+
+    List<UploadSession> findByCreatedAtBefore(LocalDateTime createdAt);
+
+    /**
+     * Records a received chunk without loading the session, so that chunks can be received in parallel.
+     * Receiving the same chunk more than once is harmless.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO upload_session_chunks (session_id, chunk_index) VALUES (:sessionId, :chunkIndex)" +
+            " ON CONFLICT DO NOTHING", nativeQuery = true)
+    void registerReceivedChunk(String sessionId, int chunkIndex);
+
+    /**
+     * Claims a session for completion, unless it is already claimed, in a single conditional update.
+     * Of several concurrent completions of the same session, exactly one claims it.
+     *
+     * @return {@code 1} if the session was claimed, {@code 0} if it does not exist or is already claimed.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.completingSince = :now WHERE s.id = :id AND s.completingSince IS NULL")
+    int claimForCompletion(String id, LocalDateTime now);
+
+    /**
+     * Releases the claim on a session whose completion failed, so that completing it can be retried.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.completingSince = NULL WHERE s.id = :id")
+    void releaseCompletionClaim(String id);
+}
@@ -2,6 +2,7 @@ package me.code.dropfolder.repositories;
 
 import me.code.dropfolder.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
@@ -29,4 +30,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
             " AND u.password NOT LIKE :password")
     boolean isInvalidPassword(String username, String password);
 
+    /**
+     * Deletes a user without loading it as an entity, which requires its folders to have been deleted first.
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :userId")
+    int deleteUserById(long userId);
 }
@@ -0,0 +1,45 @@
+package me.code.dropfolder.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
+
+/**
+ * The principal of an authenticated request, built from the claims of the verified JWT sent with the request.
+ * <p>
+ * Controllers receive it through {@code @AuthenticationPrincipal}, so the user ID no longer needs to be
+ * extracted from the token again after the token has been verified by the {@link JwtValidationFilter}.
+ * Since everything it holds is taken from the token, authenticating a request does not read the user from
+ * the database at all.
+ *
+ * @param id          The unique identifier of the authenticated user.
+ * @param username    The username of the authenticated user.
+ * @param authorities The authorities granted to the authenticated user.
+ */
+public record AuthenticatedUser(long id, String username, List<GrantedAuthority> authorities) {
+
+    /**
+     * The authorities of users whose token predates the authorities claim, which every user is granted.
+     */
+    private static final List<String> DEFAULT_AUTHORITIES = List.of("ROLE_USER");
+
+    /**
+     * Builds the principal from the claims of a verified token.
+     *
+     * @param claims The claims of the verified token.
+     * @return The principal identified by the token.
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        List<?> authorities = claims.get(JwtTokenUtil.AUTHORITIES_CLAIM, List.class);
+
+        return new AuthenticatedUser(
+                Long.parseLong(claims.get("id", String.class)),
+                claims.get("username", String.class),
+                AuthorityUtils.createAuthorityList(((authorities != null) ? authorities : DEFAULT_AUTHORITIES)
+                        .stream()
+                        .map(String::valueOf)
+                        .toList()));
+    }
+}
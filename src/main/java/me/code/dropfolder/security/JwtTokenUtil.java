@@ -1,28 +1,39 @@
 package me.code.dropfolder.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.NoArgsConstructor;
 import me.code.dropfolder.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.InputStream;
 import java.security.Key;
+import java.util.Date;
 import java.util.Map;
 
 /**
  * Utility class for handling JWT (JSON Web Token) operations, such as token generation, validation, and retrieval of claims.
+ * <p>
+ * The claims of verified tokens are kept in a {@link VerifiedTokenCache}, so a token sent with repeated requests
+ * only has its signature verified once in a while rather than on every request.
  */
 @Component
-@NoArgsConstructor
 public class JwtTokenUtil {
 
     private static final String CONFIG_FILE = "secrets-config.yml";
     private static final String JWT_SECRET = "jwt-secret";
 
+    /**
+     * The claim listing the authorities granted to the user identified by a token.
+     */
+    static final String AUTHORITIES_CLAIM = "authorities";
+
     /**
      * Secret key used for JWT signing and validation.
      */
@@ -33,6 +44,25 @@ public class JwtTokenUtil {
      */
     private final Key key = Keys.hmacShaKeyFor(secret.getBytes());
 
+    /**
+     * The parser verifying the signature of tokens, which is thread-safe and therefore shared.
+     */
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+    private final VerifiedTokenCache tokenCache;
+
+    /**
+     * Constructs a new JwtTokenUtil with the given cache of verified tokens.
+     *
+     * @param tokenCache The cache holding the claims of tokens which have already been verified.
+     */
+    @Autowired
+    public JwtTokenUtil(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
     /**
      * Generates a JWT based on the provided user information.
      *
@@ -47,65 +77,29 @@ public class JwtTokenUtil {
                 .setSubject(id)
                 .claim("id", id)
                 .claim("username", username)
+                .claim(AUTHORITIES_CLAIM, user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
                 .signWith(key)
                 .compact();
     }
 
     /**
-     * Validates the given JWT.
-     *
-     * @param token The JWT to be validated.
-     * @return true if the token is valid, false otherwise.
-     */
-    public boolean isValidToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException jwtException) {
-            return false;
-        }
-    }
-
-    /**
-     * Retrieves the username from the given JWT.
-     *
-     * @param token The JWT from which to extract the username.
-     * @return The username contained in the token.
-     */
-    public String getTokenUsername(String token) {
-        return getTokenClaim(token, "username", String.class);
-    }
-
-    /**
-     * Retrieves the user ID from the given JWT.
+     * Verifies the given JWT and returns its claims, which are taken from the cache if the token has
+     * been verified recently.
      *
-     * @param token The JWT from which to extract the user ID.
-     * @return The user ID contained in the token.
+     * @param token The JWT to be verified.
+     * @return The claims contained in the token.
+     * @throws JwtException If the token is not valid.
      */
-    public long getTokenUserId(String token) {
-        String userIdString = getTokenClaim(token, "id", String.class);
-        return Long.parseLong(userIdString);
-    }
+    public Claims verifyToken(String token) {
+        Claims claims = tokenCache.get(token);
 
-    /**
-     * Retrieves a specific claim from the given JWT.
-     *
-     * @param token      The JWT from which to extract the claim.
-     * @param type       The types of claim to retrieve.
-     * @param returnType The class types of the expected return value.
-     * @param <T>        The generic types of the return value.
-     * @return The claim value of the specified types.
-     */
-    public <T> T getTokenClaim(String token, String type, Class<T> returnType) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get(type, returnType);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            tokenCache.put(token, claims);
+        } else if (claims.getExpiration() != null && claims.getExpiration().before(new Date())) {
+            throw new ExpiredJwtException(null, claims, "The provided token has expired.");
+        }
+        return claims;
     }
 
     /**
@@ -4,35 +4,36 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.NonNull;
 import me.code.dropfolder.exceptions.types.InvalidTokenException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
 /**
  * A filter for validating and processing JWT (JSON Web Token) authentication in the servlet request.
+ * <p>
+ * The token is verified once per request, and the user it identifies is placed into the security context
+ * as an {@link AuthenticatedUser}, from which controllers read the ID of the user. The principal is built from
+ * the claims of the token alone, so the user is not loaded from the database.
  */
 public class JwtValidationFilter extends OncePerRequestFilter {
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
 
-    private final UserDetailsService userDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
 
     /**
-     * Constructs a new JwtValidationFilter with the provided JwtTokenUtil and UserDetailsService.
+     * Constructs a new JwtValidationFilter with the provided JwtTokenUtil.
      *
-     * @param jwtTokenUtil       The JwtTokenUtil instance for JWT-related operations.
-     * @param userDetailsService The UserDetailsService implementation to retrieve user details for token validation.
+     * @param jwtTokenUtil The JwtTokenUtil instance for JWT-related operations.
      */
-    public JwtValidationFilter(JwtTokenUtil jwtTokenUtil, UserDetailsService userDetailsService) {
+    public JwtValidationFilter(JwtTokenUtil jwtTokenUtil) {
         this.jwtTokenUtil = jwtTokenUtil;
-        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -57,11 +58,9 @@ public class JwtValidationFilter extends OncePerRequestFilter {
         if (isTokenMissing(token)) {
             continueFilterChain(securityFilterChain, request, response);
 
-        } else if (isValidToken(token)) {
-            continueFilterChainWithAuthentication(token, securityFilterChain, request, response);
-
         } else {
-            throw new InvalidTokenException("The provided token is not valid.");
+            Claims claims = verifyToken(token);
+            continueFilterChainWithAuthentication(claims, securityFilterChain, request, response);
         }
     }
 
@@ -76,13 +75,18 @@ public class JwtValidationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Validates if the provided JWT token is valid using JwtTokenUtil.
+     * Verifies the provided JWT token using JwtTokenUtil and returns its claims.
      *
-     * @param token The JWT token to be validated.
-     * @return true if the token is valid, false otherwise.
+     * @param token The JWT token to be verified.
+     * @return The claims contained in the token.
+     * @throws InvalidTokenException If the provided token is not valid.
      */
-    private boolean isValidToken(String token) {
-        return jwtTokenUtil.isValidToken(token);
+    private Claims verifyToken(String token) {
+        try {
+            return jwtTokenUtil.verifyToken(token);
+        } catch (JwtException jwtException) {
+            throw new InvalidTokenException("The provided token is not valid.");
+        }
     }
 
     /**
@@ -107,20 +111,19 @@ public class JwtValidationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Sets the authentication context based on the provided JWT token.
+     * Sets the authentication context based on the claims of the verified JWT token.
      *
-     * @param token The JWT token from which to extract user details.
+     * @param claims The claims of the verified JWT token, from which to build the principal.
      */
-    private void setAuthenticationContext(String token) {
-        UserDetails userDetails = getUserDetails(token);
-        var authToken = getAuthToken(userDetails);
+    private void setAuthenticationContext(Claims claims) {
+        var authToken = getAuthToken(AuthenticatedUser.fromClaims(claims));
         SecurityContextHolder.getContext().setAuthentication(authToken);
     }
 
     /**
      * Continues the filter chain after setting the authentication context.
      *
-     * @param token       The JWT token.
+     * @param claims      The claims of the verified JWT token.
      * @param filterChain The filter chain to be continued.
      * @param request     The servlet request.
      * @param response    The servlet response.
@@ -128,35 +131,23 @@ public class JwtValidationFilter extends OncePerRequestFilter {
      * @throws IOException      If an I/O exceptions occurs.
      */
     private void continueFilterChainWithAuthentication(
-            String token,
+            Claims claims,
             FilterChain filterChain,
             HttpServletRequest request,
             HttpServletResponse response)
             throws ServletException, IOException {
-        setAuthenticationContext(token);
+        setAuthenticationContext(claims);
         continueFilterChain(filterChain, request, response);
     }
 
     /**
-     * Retrieves UserDetails based on the username extracted from the JWT token.
-     *
-     * @param token The JWT token from which to extract the username.
-     * @return UserDetails object for the specified username.
-     */
-    private UserDetails getUserDetails(String token) {
-        String username = jwtTokenUtil.getTokenUsername(token);
-        return this.userDetailsService.loadUserByUsername(username);
-    }
-
-    /**
-     * Creates an authentication token based on UserDetails.
+     * Creates an authentication token for the authenticated user, granted the authorities contained in the token.
      *
-     * @param user The UserDetails object.
+     * @param principal The principal built from the claims of the JWT token.
      * @return An authentication token.
      */
-    private UsernamePasswordAuthenticationToken getAuthToken(UserDetails user) {
-        return new UsernamePasswordAuthenticationToken(
-                user.getUsername(), user.getPassword(), user.getAuthorities());
+    private UsernamePasswordAuthenticationToken getAuthToken(AuthenticatedUser principal) {
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
     }
 
     /**
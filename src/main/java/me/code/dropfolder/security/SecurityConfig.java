@@ -1,5 +1,6 @@
 package me.code.dropfolder.security;
 
+import jakarta.servlet.DispatcherType;
 import me.code.dropfolder.repositories.UserRepository;
 import me.code.dropfolder.services.UserRegistrationValidator;
 import me.code.dropfolder.services.UserService;
@@ -11,6 +12,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,16 +29,20 @@ public class SecurityConfig {
     /**
      * Configures the security filter chain for the application.
      *
-     * @param security           The HttpSecurity object to configure.
-     * @param userDetailsService The UserDetailsService implementation for loading user details.
+     * @param security     The HttpSecurity object to configure.
+     * @param jwtTokenUtil The utility for verifying the JWTs of authenticated requests.
      * @return The configured SecurityFilterChain.
      * @throws Exception If an error occurs during configuration.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity security, UserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity security, JwtTokenUtil jwtTokenUtil) throws Exception {
         security.csrf(AbstractHttpConfigurer::disable)
-                .addFilterAfter(new JwtValidationFilter(jwtTokenUtil, userDetailsService), UsernamePasswordAuthenticationFilter.class)
+                // Every request is authenticated by its token alone, so no session is kept between requests
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterAfter(new JwtValidationFilter(jwtTokenUtil), UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(authorize -> authorize.requestMatchers("/api/user/register", "/api/login").permitAll()
+                        // Streamed responses complete on an async dispatch of an already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated());
         return security.build();
     }
@@ -0,0 +1,91 @@
+package me.code.dropfolder.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of the claims of JWTs whose signature has already been verified.
+ * <p>
+ * Clients typically send the same token with every request, so caching its claims spares verifying its signature
+ * on every request. Entries expire after a fixed time to live, and the least recently used entries are evicted
+ * once the cache is full. Only tokens which have passed verification are ever cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Duration timeToLive;
+    private final int maxSize;
+    private final Map<String, CachedClaims> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructs a new VerifiedTokenCache with the given bounds.
+     *
+     * @param timeToLive How long the claims of a verified token are cached.
+     * @param maxSize    The maximum number of tokens cached at once.
+     */
+    public VerifiedTokenCache(@Value("${dropfolder.security.token-cache.time-to-live}") Duration timeToLive,
+                              @Value("${dropfolder.security.token-cache.max-size}") int maxSize) {
+        this.timeToLive = timeToLive;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the cached claims of the given token, if it has been verified and has not expired from the cache.
+     *
+     * @param token The JWT whose claims to retrieve.
+     * @return The claims of the token, or {@code null} if they are not cached.
+     */
+    public Claims get(String token) {
+        lock.lock();
+        try {
+            CachedClaims cached = entries.get(token);
+            if (cached == null) {
+                return null;
+            }
+            if (System.nanoTime() - cached.expiresAt() > 0) {
+                entries.remove(token);
+                return null;
+            }
+            return cached.claims();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the claims of a token which has just been verified.
+     *
+     * @param token  The verified JWT.
+     * @param claims The claims of the token.
+     */
+    public void put(String token, Claims claims) {
+        lock.lock();
+        try {
+            entries.put(token, new CachedClaims(claims, System.nanoTime() + timeToLive.toNanos()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record holding the claims of a verified token along with the moment they expire from the cache.
+     *
+     * @param claims    The claims of the token.
+     * @param expiresAt The {@link System#nanoTime()} at which the entry expires.
+     */
+    private record CachedClaims(Claims claims, long expiresAt) {
+    }
+}
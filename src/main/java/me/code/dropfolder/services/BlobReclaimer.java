@@ -0,0 +1,55 @@
+package me.code.dropfolder.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Background job removing content from the blob store once no file references it anymore.
+ * <p>
+ * Deleting folders and users, and purging the trash, releases the references of files in bulk without touching
+ * the blob store, so the deletion itself only runs a few set-based statements. The content left unreferenced is
+ * reclaimed here, one blob per transaction, so a slow file system never holds a lock on more than one reference
+ * count row.
+ */
+@Component
+public class BlobReclaimer {
+    private static final int PAGE_SIZE = 1000;
+
+    private final BlobService blobService;
+
+    /**
+     * Constructs a new BlobReclaimer with the given dependencies.
+     *
+     * @param blobService The service removing unreferenced content from the blob store.
+     */
+    @Autowired
+    public BlobReclaimer(BlobService blobService) {
+        this.blobService = blobService;
+    }
+
+    /**
+     * Reclaims all content which is no longer referenced, one page of keys at a time.
+     */
+    @Scheduled(fixedDelayString = "${dropfolder.storage.reclaim-interval}")
+    public void reclaimUnreferencedBlobs() {
+        String afterKey = "";
+        List<String> keys;
+
+        do {
+            keys = blobService.findUnreferencedKeys(afterKey, PAGE_SIZE);
+            for (String key : keys) {
+                try {
+                    blobService.reclaim(key);
+                } catch (IOException exception) {
+                    // The reference count row is kept along with the content, so it is retried on the next run
+                }
+                afterKey = key;
+            }
+        } while (keys.size() == PAGE_SIZE);
+    }
+
+}
@@ -0,0 +1,196 @@
+package me.code.dropfolder.services;
+
+import me.code.dropfolder.models.BlobReference;
+import me.code.dropfolder.repositories.BlobReferenceRepository;
+import me.code.dropfolder.storage.BlobStore;
+import me.code.dropfolder.storage.ContentCodec;
+import me.code.dropfolder.storage.StagedContent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Service class for storing and releasing the content of files, deduplicating identical content.
+ * <p>
+ * Content is keyed by its hash, which is computed while it is streamed into the blob store, so identical
+ * content is only stored once. Every file referencing a blob is counted, and the blob is only removed
+ * once the last reference to it has been released, by {@link BlobReclaimer} in the background.
+ * <p>
+ * References must be acquired and released within the transaction creating or deleting the files. The reference
+ * count row is locked from the moment it is updated until that transaction ends, so an upload of identical content
+ * can never commit a reference to a blob that is concurrently being reclaimed.
+ * <p>
+ * Content is committed to the blob store before the transaction referencing it commits, so a committed reference
+ * always points at stored content. Content about to be stored is recorded with a reference count of zero beforehand,
+ * so content left behind by a transaction which is rolled back, or never completes, is reclaimed in the background.
+ */
+@Service
+public class BlobService {
+
+    private final BlobStore blobStore;
+    private final BlobReferenceRepository blobReferenceRepository;
+
+    /**
+     * Constructs a new BlobService with the given dependencies.
+     *
+     * @param blobStore               The storage engine holding the content of files.
+     * @param blobReferenceRepository The repositories for counting references to stored content.
+     */
+    @Autowired
+    public BlobService(BlobStore blobStore, BlobReferenceRepository blobReferenceRepository) {
+        this.blobStore = blobStore;
+        this.blobReferenceRepository = blobReferenceRepository;
+    }
+
+    /**
+     * Records staged content as about to be stored, in a transaction of its own, without referencing it.
+     * <p>
+     * This must be done before the transaction storing the content starts. If that transaction never commits a
+     * reference to the content, whatever it committed to the blob store stays recorded as unreferenced, and is
+     * reclaimed by {@link BlobReclaimer}.
+     *
+     * @param stagedContent The staged content which is about to be stored.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void reserve(StagedContent stagedContent) {
+        blobReferenceRepository.reserveReference(stagedContent.key(), stagedContent.size(),
+                stagedContent.codec().name(), stagedContent.storedSize());
+    }
+
+    /**
+     * Stores staged content and acquires a reference to it.
+     * <p>
+     * The staged content is committed to the blob store within the transaction acquiring the reference, before that
+     * transaction commits, unless identical content is already stored. If the content could not be committed, the
+     * transaction is rolled back, so no reference to missing content is ever committed. Content committed by a
+     * transaction which is rolled back afterwards, such as when saving a file is retried under another name, is left
+     * unreferenced once the content has been {@linkplain #reserve(StagedContent) reserved}, and reclaimed.
+     * The staging file must be discarded by the caller once the transaction has ended. Content which is already
+     * stored keeps the codec it was stored in, which is why the reference to the stored content is returned.
+     *
+     * @param stagedContent The staged content to store.
+     * @return The reference to the stored content, describing the codec in which it is stored.
+     * @throws UncheckedIOException If the content could not be committed to the blob store.
+     */
+    @Transactional
+    public BlobReference store(StagedContent stagedContent) {
+        blobReferenceRepository.acquireReference(stagedContent.key(), stagedContent.size(),
+                stagedContent.codec().name(), stagedContent.storedSize());
+        BlobReference reference = blobReferenceRepository.findById(stagedContent.key()).orElseThrow();
+
+        if (reference.getCodec() == stagedContent.codec()) {
+            try {
+                blobStore.commit(stagedContent);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return reference;
+    }
+
+    /**
+     * Removes content from the blob store if it is no longer referenced.
+     * <p>
+     * The reference count row is deleted before the content, so the row stays locked until the surrounding
+     * transaction ends and an upload of identical content waits for the removal to complete. If the content could
+     * not be removed, the row is kept so that the removal can be retried.
+     *
+     * @param blobKey The key of the content in the blob store.
+     * @throws IOException If an I/O error occurs while removing the content.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public void reclaim(String blobKey) throws IOException {
+        if (blobReferenceRepository.deleteIfUnreferenced(blobKey) > 0) {
+            blobStore.delete(blobKey);
+        }
+    }
+
+    /**
+     * Finds a page of keys of content which is no longer referenced, in the order of their keys.
+     *
+     * @param afterKey The last key of the previous page, or an empty string for the first page.
+     * @param limit    The maximum number of keys in the page.
+     * @return The keys of unreferenced content following the given key.
+     */
+    public List<String> findUnreferencedKeys(String afterKey, int limit) {
+        return blobReferenceRepository.findUnreferencedKeys(afterKey, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Resolves stored content as a resource, without reading it into memory.
+     * <p>
+     * Content stored verbatim is resolved as the stored file itself. Compressed content is resolved as a resource
+     * which decompresses the stored content while it is read.
+     *
+     * @param blobKey The key of the content in the blob store.
+     * @param codec   The codec in which the content is stored.
+     * @param size    The size of the original content in bytes.
+     * @return A resource representing the original content.
+     * @throws IOException If the content could not be found.
+     */
+    public Resource load(String blobKey, ContentCodec codec, long size) throws IOException {
+        Resource storedContent = blobStore.load(blobKey, codec);
+        return (codec == ContentCodec.IDENTITY)
+                ? storedContent
+                : new DecodedResource(storedContent, codec, size);
+    }
+
+    /**
+     * Resolves stored content as a resource, as it is encoded in the blob store.
+     *
+     * @param blobKey The key of the content in the blob store.
+     * @param codec   The codec in which the content is stored.
+     * @return A resource representing the encoded content.
+     * @throws IOException If the content could not be found.
+     */
+    public Resource loadEncoded(String blobKey, ContentCodec codec) throws IOException {
+        return blobStore.load(blobKey, codec);
+    }
+
+    /**
+     * Resource providing the original content of a resource holding encoded content, decoding it while it is read.
+     * Since the content is decoded on the fly, it is not backed by a file, and only its original size is known.
+     */
+    private static class DecodedResource extends AbstractResource {
+
+        private final Resource encodedContent;
+        private final ContentCodec codec;
+        private final long size;
+
+        private DecodedResource(Resource encodedContent, ContentCodec codec, long size) {
+            this.encodedContent = encodedContent;
+            this.codec = codec;
+            this.size = size;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return codec.decode(encodedContent.getInputStream());
+        }
+
+        @Override
+        public boolean exists() {
+            return encodedContent.exists();
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public String getDescription() {
+            return codec.getContentEncoding() + "-decoded " + encodedContent.getDescription();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.code.dropfolder.services;
+
+import me.code.dropfolder.exceptions.types.CouldNotFindFileException;
+import me.code.dropfolder.exceptions.types.CouldNotFindFolderException;
+import me.code.dropfolder.exceptions.types.UnauthorizedFileOperationException;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.models.FolderOwnership;
+import me.code.dropfolder.utils.JpQueryUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validator class for checking that a user is allowed to operate on a folder or on a file within a folder.
+ * <p>
+ * Each check is resolved with a single query by primary key, which projects the ID of the owner of the folder
+ * along with the folder or file itself. The ownership is then compared in memory, so neither the user
+ * nor the folder is loaded before a file operation.
+ */
+@Component
+public class FileAccessValidator {
+    private final JpQueryUtil query;
+
+    /**
+     * Constructs a new FileAccessValidator with the given query utility.
+     *
+     * @param query The utility for executing JPQL queries related to files and folders.
+     */
+    @Autowired
+    public FileAccessValidator(JpQueryUtil query) {
+        this.query = query;
+    }
+
+    /**
+     * Validates that the user owns the specified folder, and returns its ownership.
+     *
+     * @param userId   The ID of the user operating on the folder.
+     * @param folderId The ID of the target folder.
+     * @return The ownership of the target folder.
+     * @throws CouldNotFindFolderException        If the folder could not be found.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the folder.
+     */
+    public FolderOwnership validateFolderAccess(long userId, long folderId) {
+        FolderOwnership targetFolder = query.loadFolderOwnershipById(folderId);
+
+        if (targetFolder.ownerId() != userId) {
+            throw new UnauthorizedFileOperationException("User with id: {" + userId + "} is not the owner of" +
+                    " folder with id: {" + folderId + "}");
+        }
+        return targetFolder;
+    }
+
+    /**
+     * Validates that the user owns the specified folder and that the file belongs to it,
+     * and returns the metadata of the file.
+     *
+     * @param userId   The ID of the user operating on the file.
+     * @param folderId The ID of the folder containing the target file.
+     * @param fileId   The ID of the target file.
+     * @return The metadata of the target file.
+     * @throws CouldNotFindFileException          If the file could not be found.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the file in the specified folder.
+     */
+    public FileMetadata validateFileAccess(long userId, long folderId, long fileId) {
+        return validateOwnership(userId, folderId, query.loadFileMetadataById(fileId));
+    }
+
+    /**
+     * Validates that the user owns the specified folder and that the trashed file belongs to it,
+     * and returns the metadata of the file.
+     *
+     * @param userId   The ID of the user operating on the file.
+     * @param folderId The ID of the folder containing the target file.
+     * @param fileId   The ID of the target file, which has been moved to the trash.
+     * @return The metadata of the target file.
+     * @throws CouldNotFindFileException          If the file could not be found in the trash.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the file in the specified folder.
+     */
+    public FileMetadata validateTrashedFileAccess(long userId, long folderId, long fileId) {
+        return validateOwnership(userId, folderId, query.loadTrashedFileMetadataById(fileId));
+    }
+
+    /**
+     * Validates that the file belongs to the specified folder and that the user owns that folder.
+     *
+     * @param userId     The ID of the user operating on the file.
+     * @param folderId   The ID of the folder containing the target file.
+     * @param targetFile The metadata of the target file.
+     * @return The metadata of the target file.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the file in the specified folder.
+     */
+    private FileMetadata validateOwnership(long userId, long folderId, FileMetadata targetFile) {
+        if (targetFile.ownerId() != userId || targetFile.folderId() != folderId) {
+            throw new UnauthorizedFileOperationException("User with id: {" + userId + "} is not the owner of" +
+                    " file with id: {" + targetFile.id() + "}");
+        }
+        return targetFile;
+    }
+
+}
@@ -2,51 +2,124 @@ package me.code.dropfolder.services;
 
 import jakarta.transaction.Transactional;
 import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.BatchDeletionSuccessDetail;
+import me.code.dropfolder.dtos.details.BatchUploadSuccessDetail;
+import me.code.dropfolder.dtos.details.BatchUploadSuccessDetail.FileResult;
 import me.code.dropfolder.dtos.details.EntitySuccessDetail;
 import me.code.dropfolder.exceptions.dtos.details.FileOperationErrorDetail;
 import me.code.dropfolder.exceptions.dtos.details.FileUploadErrorDetail;
 import me.code.dropfolder.exceptions.types.*;
+import me.code.dropfolder.models.BlobReference;
 import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
-import me.code.dropfolder.models.User;
+import me.code.dropfolder.models.FolderOwnership;
 import me.code.dropfolder.repositories.FileRepository;
+import me.code.dropfolder.storage.BlobStore;
+import me.code.dropfolder.storage.CompressionPolicy;
+import me.code.dropfolder.storage.ContentCodec;
+import me.code.dropfolder.storage.StagedContent;
 import me.code.dropfolder.utils.JpQueryUtil;
 import me.code.dropfolder.utils.UniqueNameGeneratorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
 
 /**
  * Service class for managing file-related operations, such as uploading, downloading, and deleting files.
  * <p>
  * This class handles interactions between users, folders, and files, ensuring proper permissions and file integrity.
- * It utilizes a combination of transaction management, query utilities, and a unique name generator for file handling.
+ * It utilizes a combination of transaction management, an access validator, and a unique name generator for file handling.
+ * The content of files is kept in a {@link BlobStore}, while the database only holds their metadata.
+ * Identical content is only stored once, and shared between files through the {@link BlobService}.
+ * Content is compressed at rest when the {@link CompressionPolicy} deems its content type compressible,
+ * and decompressed while it is streamed on download.
+ * <p>
+ * Deleting a file only moves it to the trash, from which it can be restored until it is purged in the background
+ * along with its content.
  */
 @Service
 public class FileService {
+    private static final int MAX_BATCH_DELETION_SIZE = 10000;
+
     private final FileRepository fileRepository;
-    private final JpQueryUtil query;
     private final UniqueNameGeneratorUtil nameGenerator;
+    private final BlobStore blobStore;
+    private final BlobService blobService;
+    private final FileAccessValidator accessValidator;
+    private final JpQueryUtil query;
+    private final CompressionPolicy compressionPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final long maxFileSize;
 
     /**
      * Constructs a new FileService with the given dependencies.
      *
-     * @param fileRepository The repositories for file-related database operations.
-     * @param jpQueryUtil    The utility for executing JPQL queries related to files, folders and users.
-     * @param nameGenerator  The utility for generating unique names for files and folders.
+     * @param fileRepository     The repositories for file-related database operations.
+     * @param nameGenerator      The utility for generating unique names for files and folders.
+     * @param blobStore          The storage engine in which the content of uploaded files is staged.
+     * @param blobService        The service storing and releasing deduplicated file content.
+     * @param accessValidator    The validator checking the user's permission to operate on folders and files.
+     * @param query              The utility referencing the folder into which a new file is saved.
+     * @param compressionPolicy  The policy deciding in which codec the content of uploaded files is stored.
+     * @param transactionManager The transaction manager in which each attempt to save a new file is performed.
+     * @param taskExecutor       The executor on which the files of a batch upload are staged in parallel.
+     * @param maxFileSize        The maximum size of a file uploaded as a raw request body.
      */
     @Autowired
-    public FileService(FileRepository fileRepository, JpQueryUtil jpQueryUtil, UniqueNameGeneratorUtil nameGenerator) {
+    public FileService(FileRepository fileRepository, UniqueNameGeneratorUtil nameGenerator,
+                       BlobStore blobStore, BlobService blobService, FileAccessValidator accessValidator,
+                       JpQueryUtil query, CompressionPolicy compressionPolicy, PlatformTransactionManager transactionManager,
+                       @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                       Executor taskExecutor,
+                       @Value("${dropfolder.upload.max-file-size}") DataSize maxFileSize) {
         this.fileRepository = fileRepository;
-        this.query = jpQueryUtil;
         this.nameGenerator = nameGenerator;
+        this.blobStore = blobStore;
+        this.blobService = blobService;
+        this.accessValidator = accessValidator;
+        this.query = query;
+        this.compressionPolicy = compressionPolicy;
+        // Every attempt needs a transaction of its own, since a conflicting insert marks it for rollback
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.taskExecutor = taskExecutor;
+        this.maxFileSize = maxFileSize.toBytes();
     }
 
     /**
      * Uploads a new file to the specified folder.
+     * <p>
+     * The content of the attached file is streamed into storage rather than read into memory as a whole.
      *
      * @param userId       The ID of the user initiating the upload.
      * @param folderId     The ID of the target folder for the upload.
@@ -54,72 +127,353 @@ public class FileService {
      * @return A SuccessDto indicating the result of the upload operation.
      * @throws FileUploadFailureException If the upload operation fails.
      */
-    @Transactional
     public SuccessDto upload(long userId, long folderId, MultipartFile attachedFile) {
+        try (InputStream content = attachedFile.getInputStream()) {
+            return upload(userId, folderId, attachedFile.getOriginalFilename(), attachedFile.getContentType(), content);
+
+        } catch (IOException exception) {
+            throw new FileUploadFailureException("Failed to upload file",
+                    new FileUploadErrorDetail(attachedFile, exception));
+        }
+    }
+
+    /**
+     * Uploads several files to the specified folder in one operation, reporting the outcome of each file.
+     * <p>
+     * The user's permission to upload to the folder is checked once for the whole batch. The content of the files
+     * is then staged in parallel, and the files which were staged are saved together in a single transaction, with
+     * their names resolved up front so that they are inserted in one flush. A file which could not be staged is
+     * reported as failed without affecting the others.
+     *
+     * @param userId        The ID of the user initiating the upload.
+     * @param folderId      The ID of the target folder for the upload.
+     * @param attachedFiles The files to be uploaded.
+     * @return A SuccessDto describing the outcome of each file, which is {@code 201 Created} if every file was
+     * uploaded and {@code 207 Multi-Status} otherwise.
+     * @throws FileUploadFailureException If no file is attached, or the user may not upload to the folder.
+     */
+    public SuccessDto uploadBatch(long userId, long folderId, List<MultipartFile> attachedFiles) {
+        FolderOwnership targetFolder;
         try {
-            User requestingUser = query.loadUserById(userId);
-            Folder targetFolder = query.loadFolderById(folderId);
+            if (attachedFiles == null || attachedFiles.isEmpty()) {
+                throw new IllegalArgumentException("At least one file must be attached");
+            }
+            targetFolder = accessValidator.validateFolderAccess(userId, folderId);
+
+        } catch (Exception exception) {
+            throw new FileUploadFailureException("Failed to upload files",
+                    new FileUploadErrorDetail(null, null, null, exception));
+        }
+
+        List<CompletableFuture<StagedUpload>> stagingTasks = IntStream.range(0, attachedFiles.size())
+                .mapToObj(index -> CompletableFuture.supplyAsync(
+                        () -> stageUpload(index, attachedFiles.get(index)), taskExecutor))
+                .toList();
 
-            checkUsersUploadPermission(requestingUser, targetFolder);
-            File newFile = createAndSaveFile(attachedFile, targetFolder);
+        FileResult[] results = new FileResult[attachedFiles.size()];
+        List<StagedUpload> stagedUploads = new ArrayList<>();
+        for (int index = 0; index < attachedFiles.size(); index++) {
+            try {
+                stagedUploads.add(stagingTasks.get(index).join());
+            } catch (CompletionException exception) {
+                results[index] = FileResult.failed(attachedFiles.get(index).getOriginalFilename(),
+                        exception.getCause().getMessage());
+            }
+        }
+
+        try {
+            if (!stagedUploads.isEmpty()) {
+                stagedUploads.forEach(stagedUpload -> blobService.reserve(stagedUpload.content()));
+                List<File> savedFiles = nameGenerator.saveWithUniqueName(() -> transactionTemplate.execute(status ->
+                        saveFiles(stagedUploads, targetFolder.id())));
+                for (int index = 0; index < stagedUploads.size(); index++) {
+                    StagedUpload stagedUpload = stagedUploads.get(index);
+                    File savedFile = savedFiles.get(index);
+                    results[stagedUpload.index()] =
+                            FileResult.uploaded(stagedUpload.fileName(), savedFile.getId(), savedFile.getName());
+                }
+            }
+
+        } catch (Exception exception) {
+            for (StagedUpload stagedUpload : stagedUploads) {
+                results[stagedUpload.index()] = FileResult.failed(stagedUpload.fileName(), exception.getMessage());
+            }
+
+        } finally {
+            for (StagedUpload stagedUpload : stagedUploads) {
+                discardQuietly(stagedUpload.content());
+            }
+        }
+
+        BatchUploadSuccessDetail detail = new BatchUploadSuccessDetail(folderId, List.of(results));
+        return new SuccessDto(
+                detail.isComplete() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS,
+                "Uploaded " + detail.getUploadedCount() + " of " + results.length + " files",
+                detail);
+    }
+
+    /**
+     * Uploads a new file to the specified folder by streaming its content into storage.
+     * <p>
+     * The content is copied in fixed-size chunks, which keeps the memory used by an upload constant
+     * regardless of the size of the file. The stream is not closed by this method.
+     *
+     * @param userId      The ID of the user initiating the upload.
+     * @param folderId    The ID of the target folder for the upload.
+     * @param fileName    The name of the file to be uploaded.
+     * @param contentType The content type of the file to be uploaded.
+     * @param content     The stream providing the content of the file.
+     * @return A SuccessDto indicating the result of the upload operation.
+     * @throws FileUploadFailureException If the upload operation fails.
+     */
+    public SuccessDto upload(long userId, long folderId, String fileName, String contentType, InputStream content) {
+        return upload(userId, folderId, fileName, contentType, codec -> blobStore.stage(content, codec));
+    }
+
+    /**
+     * Uploads a new file to the specified folder from a raw request body, described by the headers of the request.
+     * <p>
+     * The name of the file is taken from the {@code Content-Disposition} header, and its content type from the
+     * {@code Content-Type} header. The body is streamed straight into storage in a single pass, without being
+     * spooled by multipart parsing first. A body which declares or turns out to exceed the maximum file size is
+     * rejected, and whatever was staged of it is discarded.
+     *
+     * @param userId   The ID of the user initiating the upload.
+     * @param folderId The ID of the target folder for the upload.
+     * @param headers  The headers describing the file to be uploaded.
+     * @param content  The stream providing the content of the file. The stream is not closed by this method.
+     * @return A SuccessDto indicating the result of the upload operation.
+     * @throws FileUploadFailureException If the headers do not describe the file, the file is too large, or the
+     *                                    upload operation fails.
+     */
+    public SuccessDto upload(long userId, long folderId, HttpHeaders headers, InputStream content) {
+        String fileName;
+        String contentType;
+        try {
+            fileName = headers.getContentDisposition().getFilename();
+            contentType = (headers.getContentType() != null) ? headers.getContentType().toString() : null;
+            if (fileName == null || fileName.isBlank()) {
+                throw new IllegalArgumentException("The Content-Disposition header must specify a file name");
+            }
+            if (headers.getContentLength() > maxFileSize) {
+                throw new IllegalArgumentException("The file must not exceed " + maxFileSize + " bytes");
+            }
+
+        } catch (IllegalArgumentException exception) {
+            throw new FileUploadFailureException("Failed to upload file",
+                    new FileUploadErrorDetail(null, null,
+                            (headers.getContentLength() != -1) ? headers.getContentLength() : null, exception));
+        }
+        return upload(userId, folderId, fileName, contentType, new SizeLimitedInputStream(content, maxFileSize));
+    }
+
+    /**
+     * Uploads a new file to the specified folder from content that has already been staged on disk,
+     * such as a completed resumable upload. The staged file is left in place, to be deleted by the caller once the
+     * upload has succeeded.
+     *
+     * @param userId      The ID of the user initiating the upload.
+     * @param folderId    The ID of the target folder for the upload.
+     * @param fileName    The name of the file to be uploaded.
+     * @param contentType The content type of the file to be uploaded.
+     * @param stagedFile  The file holding the content, which is not consumed by this method.
+     * @return A SuccessDto indicating the result of the upload operation.
+     * @throws FileUploadFailureException If the upload operation fails.
+     */
+    public SuccessDto uploadStagedFile(long userId, long folderId, String fileName, String contentType, Path stagedFile) {
+        return upload(userId, folderId, fileName, contentType, codec -> blobStore.stage(stagedFile, codec));
+    }
+
+    /**
+     * Uploads a new file to the specified folder, staging its content with the given stager once the user's
+     * permission to upload has been checked.
+     *
+     * @param userId        The ID of the user initiating the upload.
+     * @param folderId      The ID of the target folder for the upload.
+     * @param fileName      The name of the file to be uploaded.
+     * @param contentType   The content type of the file to be uploaded.
+     * @param contentStager The stager streaming the content of the file into the blob store.
+     * @return A SuccessDto indicating the result of the upload operation.
+     * @throws FileUploadFailureException If the upload operation fails.
+     */
+    private SuccessDto upload(long userId, long folderId, String fileName, String contentType,
+                              ContentStager contentStager) {
+        try {
+            FolderOwnership targetFolder = accessValidator.validateFolderAccess(userId, folderId);
+            File newFile = createAndSaveFile(fileName, contentType, contentStager, targetFolder.id());
 
             return new SuccessDto(
                     HttpStatus.CREATED,
                     "Successfully uploaded a new file",
-                    new EntitySuccessDetail(newFile, "The file that was uploaded"));
+                    new EntitySuccessDetail(describeFile(newFile, targetFolder), "The file that was uploaded"));
 
         } catch (Exception exception) {
             throw new FileUploadFailureException("Failed to upload file",
-                    new FileUploadErrorDetail(attachedFile, exception));
+                    new FileUploadErrorDetail(fileName, contentType, null, exception));
+        }
+    }
+
+    /**
+     * Stages the content, then creates a new File referencing it in the specified folder and stores the content.
+     * Content which is already stored for another file is shared rather than stored again.
+     * <p>
+     * The content is staged before any transaction is started. Since entity managers are not kept open for the
+     * whole request ({@code spring.jpa.open-in-view} is disabled), the connection used to check the user's permission
+     * has already been released, so no database connection is held while the content is transferred. The content is
+     * then reserved, and the file is saved in a transaction of its own, which is retried with a newly generated name
+     * if its name is taken by a concurrent upload in the meantime. The content is committed to the blob store before
+     * that transaction commits, so a saved file never refers to missing content, while content committed by an
+     * attempt which is rolled back is reclaimed in the background.
+     *
+     * @param fileName      The name of the file to be created.
+     * @param contentType   The content type of the file to be created.
+     * @param contentStager The stager streaming the content of the file into the blob store.
+     * @param folderId      The ID of the target folder in which the file will be saved.
+     * @return The newly created File object.
+     * @throws IOException If an I/O error occurs while storing the content of the file.
+     */
+    private File createAndSaveFile(String fileName, String contentType,
+                                   ContentStager contentStager, long folderId) throws IOException {
+        StagedContent stagedContent = contentStager.stage(compressionPolicy.selectCodec(contentType));
+
+        try {
+            blobService.reserve(stagedContent);
+            return nameGenerator.saveWithUniqueName(() -> transactionTemplate.execute(status ->
+                    saveFile(fileName, contentType, stagedContent, folderId)));
+        } finally {
+            blobStore.discard(stagedContent);
         }
     }
 
     /**
-     * Checks if the user has permission to upload a file to the specified folder.
+     * Stages the content of a file attached to a batch upload in the blob store.
      *
-     * @param user         The user initiating the upload.
-     * @param targetFolder The target folder for the upload.
-     * @throws UnauthorizedFileOperationException If the user is not the owner of the target folder.
+     * @param index        The position of the file among the attached files.
+     * @param attachedFile The attached file.
+     * @return The staged upload, holding the staged content along with the name and content type of the file.
+     * @throws IllegalArgumentException If the attached file has no name.
+     * @throws UncheckedIOException     If an I/O error occurs while staging the content of the file.
      */
-    private void checkUsersUploadPermission(User user, Folder targetFolder) {
-        if (query.userIsNotOwnerOfTargetFolder(user, targetFolder)) {
-            throw new UnauthorizedFileOperationException("User with id: {" + user.getId() + "} is not the owner of" +
-                    " folder with id: {" + targetFolder.getId() + "}");
+    private StagedUpload stageUpload(int index, MultipartFile attachedFile) {
+        String fileName = attachedFile.getOriginalFilename();
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Every attached file must have a file name");
+        }
+
+        String contentType = attachedFile.getContentType();
+        try (InputStream content = attachedFile.getInputStream()) {
+            StagedContent stagedContent = blobStore.stage(content, compressionPolicy.selectCodec(contentType));
+            return new StagedUpload(index, fileName, contentType, stagedContent);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
         }
     }
 
     /**
-     * Creates a new File from the provided MultipartFile and saves it to the specified folder.
+     * Saves new Files with unique names for several staged uploads, then stores their staged content.
+     * The names are resolved before any file is saved, so the files are all inserted in a single flush, which is
+     * performed before any content is stored so that a conflicting name is detected while the staged content is
+     * still available to a retry.
      *
-     * @param attachedFile The MultipartFile representing the content of the file to be created.
-     * @param targetFolder The target folder in which the file will be saved.
+     * @param stagedUploads The staged uploads for which files are created.
+     * @param folderId      The ID of the target folder in which the files will be saved.
+     * @return The newly created File objects, in the order of the staged uploads.
+     */
+    private List<File> saveFiles(List<StagedUpload> stagedUploads, long folderId) {
+        Folder targetFolder = query.referenceFolderById(folderId);
+        List<File> files = stagedUploads.stream()
+                .map(stagedUpload -> new File(stagedUpload.fileName(), stagedUpload.contentType(),
+                        stagedUpload.content().size(), stagedUpload.content().key(), stagedUpload.content().codec(),
+                        stagedUpload.content().storedSize(), targetFolder))
+                .toList();
+        nameGenerator.setUniqueFileNames(files);
+        fileRepository.saveAllAndFlush(files);
+
+        for (int index = 0; index < files.size(); index++) {
+            storeContent(files.get(index), stagedUploads.get(index).content());
+        }
+        return files;
+    }
+
+    /**
+     * Saves a new File with a unique name, then stores its staged content.
+     * The file is flushed before the content is stored, so a conflicting name is detected while the staged
+     * content is still available to a retry.
+     *
+     * @param fileName      The name of the file to be created.
+     * @param contentType   The content type of the file to be created.
+     * @param stagedContent The staged content of the file.
+     * @param folderId      The ID of the target folder in which the file will be saved.
      * @return The newly created File object.
-     * @throws IOException If an I/O error occurs while creating or saving the file.
      */
-    private File createAndSaveFile(MultipartFile attachedFile, Folder targetFolder) throws IOException {
-        File file = new File(attachedFile, targetFolder);
+    private File saveFile(String fileName, String contentType, StagedContent stagedContent, long folderId) {
+        File file = new File(fileName, contentType, stagedContent.size(), stagedContent.key(),
+                stagedContent.codec(), stagedContent.storedSize(), query.referenceFolderById(folderId));
         nameGenerator.setUniqueFileName(file);
-        fileRepository.save(file);
+        fileRepository.saveAndFlush(file);
+
+        storeContent(file, stagedContent);
         return file;
     }
 
     /**
-     * Fetches a file for download based on the provided user, folder, and file IDs.
+     * Stores the staged content of a file which has just been saved, acquiring a reference to it.
+     *
+     * @param file          The saved file.
+     * @param stagedContent The staged content of the file.
+     */
+    private void storeContent(File file, StagedContent stagedContent) {
+        BlobReference reference = blobService.store(stagedContent);
+
+        // Identical content which is already stored keeps its codec, which the file must then refer to
+        if (reference.getCodec() != file.getCodec()) {
+            file.setCodec(reference.getCodec());
+            file.setStoredSize(Objects.requireNonNullElse(reference.getStoredSize(), reference.getSize()));
+        }
+    }
+
+    /**
+     * Describes a newly saved file by its metadata, taking the folder and its owner from the ownership validated
+     * for the upload, so the folder referenced by the file is never loaded.
+     *
+     * @param file   The saved file.
+     * @param folder The ownership of the folder to which the file was saved.
+     * @return The metadata of the file.
+     */
+    private FileMetadata describeFile(File file, FolderOwnership folder) {
+        return new FileMetadata(file.getId(), file.getName(), file.getContentType(), file.getSize(),
+                file.getBlobKey(), file.getCodec(), file.getStoredSize(), file.getUploadedAt(),
+                folder.id(), folder.ownerId());
+    }
+
+    /**
+     * Discards staged content once it is no longer needed, ignoring failures since the staging file is only left
+     * behind in the staging directory.
+     *
+     * @param stagedContent The staged content to discard.
+     */
+    private void discardQuietly(StagedContent stagedContent) {
+        try {
+            blobStore.discard(stagedContent);
+        } catch (IOException exception) {
+            // The outcome of the upload is decided, and a leftover staging file holds no reference
+        }
+    }
+
+    /**
+     * Fetches the metadata of a file for download based on the provided user, folder, and file IDs.
+     * Only the metadata is loaded, in the same query which validates the user's permission to download it;
+     * the content is resolved separately once it is streamed.
      *
      * @param userId   The ID of the user initiating the download.
      * @param folderId The ID of the folder containing the target file.
      * @param fileId   The ID of the file to be downloaded.
-     * @return The File object to be downloaded.
+     * @return The metadata of the file to be downloaded.
      * @throws FileDownloadFailureException If the download operation fails.
      */
-    public File fetchFileForDownload(long userId, long folderId, long fileId) {
+    public FileMetadata fetchFileForDownload(long userId, long folderId, long fileId) {
         try {
-            User requestingUser = query.loadUserById(userId);
-            Folder targetFolder = query.loadFolderById(folderId);
-            File targetFile = query.loadFileById(fileId);
-
-            checkUsersDownloadPermission(requestingUser, targetFolder, targetFile);
-            return query.loadFileById(fileId);
+            return accessValidator.validateFileAccess(userId, folderId, fileId);
 
         } catch (Exception exception) {
             throw new FileDownloadFailureException("Failed to download file",
@@ -128,22 +482,54 @@ public class FileService {
     }
 
     /**
-     * Checks if the provided user has permission to download the specified file from the given folder.
+     * Resolves the content of the given file in the blob store as a resource, without reading it into memory.
+     * Compressed content is decompressed while the resource is read.
+     *
+     * @param file The metadata of the file whose content should be resolved.
+     * @return A resource representing the content of the file.
+     * @throws FileDownloadFailureException If the content of the file could not be found.
+     */
+    public Resource loadFileContent(FileMetadata file) {
+        return loadFileContent(file, ContentCodec.IDENTITY);
+    }
+
+    /**
+     * Resolves the content of the given file in the blob store as a resource in the given encoding,
+     * without reading it into memory.
+     * <p>
+     * Content requested in the codec in which it is stored is resolved as it is stored, so that it can be sent
+     * without being decompressed. Otherwise, compressed content is decompressed while the resource is read.
      *
-     * @param user         The user attempting to download the file.
-     * @param targetFolder The folder containing the target file.
-     * @param targetFile   The file to be downloaded.
-     * @throws UnauthorizedFileOperationException If the user is not the owner of the file in the specified folder.
+     * @param file     The metadata of the file whose content should be resolved.
+     * @param encoding The encoding in which the content is resolved, which is either identity or the codec of the file.
+     * @return A resource representing the content of the file in the given encoding.
+     * @throws FileDownloadFailureException If the content of the file could not be found.
      */
-    private void checkUsersDownloadPermission(User user, Folder targetFolder, File targetFile) {
-        if (query.userIsNotOwnerOfTargetFile(user, targetFolder, targetFile)) {
-            throw new UnauthorizedFileOperationException("User with id: {" + user.getId() + "} is not the owner of" +
-                    " file with id: {" + targetFile.getId() + "}");
+    public Resource loadFileContent(FileMetadata file, ContentCodec encoding) {
+        try {
+            return (encoding != ContentCodec.IDENTITY && encoding == file.codec())
+                    ? blobService.loadEncoded(file.blobKey(), file.codec())
+                    : blobService.load(file.blobKey(), file.codec(), file.size());
+        } catch (IOException exception) {
+            throw new FileDownloadFailureException("Failed to download file",
+                    new FileOperationErrorDetail(exception.getMessage()));
         }
     }
 
     /**
-     * Deletes a file based on the provided user, folder, and file IDs.
+     * Checks whether the content of the given file is of a compressible type, and is worth compressing in transfer.
+     *
+     * @param file The metadata of the file.
+     * @return {@code true} if the content type of the file is compressible, {@code false} otherwise.
+     */
+    public boolean isCompressible(FileMetadata file) {
+        return compressionPolicy.isCompressible(file.contentType());
+    }
+
+    /**
+     * Deletes a file based on the provided user, folder, and file IDs, by moving it to the trash.
+     * Only the metadata of the file is loaded, and the file is flagged as deleted with a single update, so the
+     * removal of its row and the release of its content are left to {@link #purgeTrash(Instant, int)}.
      *
      * @param userId   The ID of the user initiating the deletion.
      * @param folderId The ID of the folder containing the target file.
@@ -154,16 +540,14 @@ public class FileService {
     @Transactional
     public SuccessDto delete(long userId, long folderId, long fileId) {
         try {
-            User requestingUser = query.loadUserById(userId);
-            Folder targetFolder = query.loadFolderById(folderId);
-            File targetFile = query.loadFileById(fileId);
-
-            checkUsersDeletePermission(requestingUser, targetFolder, targetFile);
-            fileRepository.deleteById(targetFile.getId());
+            FileMetadata targetFile = accessValidator.validateFileAccess(userId, folderId, fileId);
+            if (fileRepository.trashFileById(targetFile.id(), Instant.now()) == 0) {
+                throw new CouldNotFindFileException("could not find file with id: {" + fileId + "}");
+            }
 
             return new SuccessDto(
                     HttpStatus.OK,
-                    "Successfully deleted a file",
+                    "Successfully moved a file to the trash",
                     new EntitySuccessDetail(targetFile, "The file that was deleted"));
 
         } catch (Exception exception) {
@@ -173,19 +557,198 @@ public class FileService {
     }
 
     /**
-     * Checks if the provided user has permission to delete the specified file from the given folder.
+     * Deletes several files of the specified folder in one operation, by moving them to the trash, and reports the
+     * outcome of each file.
+     * <p>
+     * The user's permission to delete from the folder is checked once for the whole batch, and the files are moved
+     * to the trash with a single set-based statement which also tells which of them were moved. Files which do not
+     * belong to the folder or are already in the trash are reported as not deleted.
+     *
+     * @param userId   The ID of the user initiating the deletion.
+     * @param folderId The ID of the folder containing the target files.
+     * @param fileIds  The IDs of the files to be deleted.
+     * @return A SuccessDto describing the outcome of each file, which is {@code 200 OK} if every file was deleted
+     * and {@code 207 Multi-Status} otherwise.
+     * @throws FileDeletionFailureException If no or too many files are requested, the user may not delete from the
+     *                                      folder, or the deletion operation fails.
+     */
+    @Transactional
+    public SuccessDto deleteBatch(long userId, long folderId, List<Long> fileIds) {
+        try {
+            Set<Long> requestedIds = validateBatchDeletionIds(fileIds);
+            accessValidator.validateFolderAccess(userId, folderId);
+
+            Set<Long> deletedIds = new HashSet<>(fileRepository.trashFilesInFolder(folderId, requestedIds, Instant.now()));
+            BatchDeletionSuccessDetail detail = new BatchDeletionSuccessDetail(folderId, requestedIds, deletedIds);
+
+            return new SuccessDto(
+                    detail.isComplete() ? HttpStatus.OK : HttpStatus.MULTI_STATUS,
+                    "Moved " + detail.getDeletedCount() + " of " + requestedIds.size() + " files to the trash",
+                    detail);
+
+        } catch (Exception exception) {
+            throw new FileDeletionFailureException("Failed to delete files",
+                    new FileOperationErrorDetail(exception.getMessage()));
+        }
+    }
+
+    /**
+     * Validates the IDs of the files requested to be deleted in one batch, dropping repeated IDs.
+     *
+     * @param fileIds The requested IDs.
+     * @return The distinct requested IDs, in the order they were requested.
+     * @throws IllegalArgumentException If no IDs, or more IDs than are deleted in one batch, are requested.
+     */
+    private Set<Long> validateBatchDeletionIds(List<Long> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one file ID must be given");
+        }
+        Set<Long> requestedIds = new LinkedHashSet<>(fileIds);
+        if (requestedIds.contains(null)) {
+            throw new IllegalArgumentException("File IDs cannot be null");
+        }
+        if (requestedIds.size() > MAX_BATCH_DELETION_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_DELETION_SIZE + " files can be deleted at once");
+        }
+        return requestedIds;
+    }
+
+    /**
+     * Restores a file which has been moved to the trash and has not been purged yet.
+     * <p>
+     * The file is restored under the name it was trashed with. Since the names of trashed files stay reserved,
+     * no file can have been given that name in the meantime, and the restore never conflicts with another file.
+     *
+     * @param userId   The ID of the user initiating the restore.
+     * @param folderId The ID of the folder containing the target file.
+     * @param fileId   The ID of the file to be restored.
+     * @return A SuccessDto indicating the result of the restore operation.
+     * @throws FileRestoreFailureException If the restore operation fails.
+     */
+    @Transactional
+    public SuccessDto restore(long userId, long folderId, long fileId) {
+        try {
+            FileMetadata targetFile = accessValidator.validateTrashedFileAccess(userId, folderId, fileId);
+            if (fileRepository.restoreFileById(targetFile.id()) == 0) {
+                throw new CouldNotFindFileException("could not find trashed file with id: {" + fileId + "}");
+            }
+
+            return new SuccessDto(
+                    HttpStatus.OK,
+                    "Successfully restored a file from the trash",
+                    new EntitySuccessDetail(targetFile, "The file that was restored"));
+
+        } catch (Exception exception) {
+            throw new FileRestoreFailureException("Failed to restore file",
+                    new FileOperationErrorDetail(exception.getMessage()));
+        }
+    }
+
+    /**
+     * Permanently deletes a batch of the files which were moved to the trash before the given moment.
+     * <p>
+     * The files are deleted and their references to their content are released with one set-based statement, which
+     * only releases the references of the files it actually deleted, so a file deleted concurrently along with its
+     * folder is not released twice. Content which is no longer referenced is reclaimed from the blob store by
+     * {@link BlobReclaimer}.
      *
-     * @param user         The user attempting to delete the file.
-     * @param targetFolder The folder containing the target file.
-     * @param targetFile   The file to be deleted.
-     * @throws UnauthorizedFileOperationException If the user is not the owner of the file in the specified folder.
+     * @param deletedBefore The moment before which the files must have been moved to the trash.
+     * @param limit         The maximum number of files purged.
+     * @return The number of files purged, which is below the limit once the trash holds no more such files.
+     */
+    @Transactional
+    public int purgeTrash(Instant deletedBefore, int limit) {
+        List<Long> fileIds = fileRepository.findTrashedIdsBefore(deletedBefore, PageRequest.of(0, limit));
+        if (fileIds.isEmpty()) {
+            return 0;
+        }
+
+        return (int) fileRepository.deleteAndReleaseFilesByIds(fileIds);
+    }
+
+    /**
+     * Functional interface for staging the content of an uploaded file in the blob store.
      */
-    private void checkUsersDeletePermission(User user, Folder targetFolder, File targetFile) {
+    @FunctionalInterface
+    private interface ContentStager {
+
+        /**
+         * Stages the content in the blob store.
+         *
+         * @param codec The codec in which the content is stored.
+         * @return The staged content, which is yet to be stored.
+         * @throws IOException If an I/O error occurs while staging the content.
+         */
+        StagedContent stage(ContentCodec codec) throws IOException;
+    }
+
+    /**
+     * Stream failing once more than a maximum number of bytes has been read from the underlying stream, which bounds
+     * content whose length is not known up front. Closing it does not close the underlying stream.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+        private long remaining;
+
+        private SizeLimitedInputStream(InputStream content, long maxSize) {
+            super(content);
+            this.maxSize = maxSize;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                consume(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                consume(count);
+            }
+            return count;
+        }
 
-        if (query.userIsNotOwnerOfTargetFile(user, targetFolder, targetFile)) {
-            throw new UnauthorizedFileOperationException("User with id: {" + user.getId() + "} is not the owner of" +
-                    " file with id: {" + targetFile.getId() + "}");
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(count);
+            consume(skipped);
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // The underlying stream is owned by the caller
+        }
+
+        /**
+         * Accounts for bytes which have been read from the underlying stream.
+         *
+         * @param count The number of bytes read.
+         * @throws IOException If the content exceeds the maximum size.
+         */
+        private void consume(long count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("The file must not exceed " + maxSize + " bytes");
+            }
         }
     }
 
+    /**
+     * Record holding the staged content of a file attached to a batch upload, until the file is saved.
+     *
+     * @param index       The position of the file among the attached files.
+     * @param fileName    The name of the file as it was attached.
+     * @param contentType The content type of the file.
+     * @param content     The staged content of the file.
+     */
+    private record StagedUpload(int index, String fileName, String contentType, StagedContent content) {
+    }
 }
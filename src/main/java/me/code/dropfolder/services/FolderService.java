@@ -2,40 +2,77 @@ package me.code.dropfolder.services;
 
 import me.code.dropfolder.dtos.SuccessDto;
 import me.code.dropfolder.dtos.details.EntitySuccessDetail;
+import me.code.dropfolder.dtos.details.FolderContentSuccessDetail;
 import me.code.dropfolder.exceptions.dtos.details.FolderOperationErrorDetail;
+import me.code.dropfolder.exceptions.types.FolderArchiveFailureException;
 import me.code.dropfolder.exceptions.types.FolderCreationFailureException;
+import me.code.dropfolder.exceptions.types.FolderDeletionFailureException;
+import me.code.dropfolder.exceptions.types.FolderListingFailureException;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.FolderOwnership;
 import me.code.dropfolder.models.User;
+import me.code.dropfolder.repositories.FileRepository;
 import me.code.dropfolder.repositories.FolderRepository;
+import me.code.dropfolder.storage.CompressionPolicy;
 import me.code.dropfolder.utils.JpQueryUtil;
 import me.code.dropfolder.utils.UniqueNameGeneratorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
- * Service class for managing folder-related operations, such as creating folders.
+ * Service class for managing folder-related operations, such as creating, listing and deleting folders.
  * <p>
- * This class handles the creation of folders for a specified user, ensuring unique folder names.
+ * This class handles the creation of folders for a specified user, ensuring unique folder names, and streams the
+ * contents of a folder as a ZIP archive.
  */
 @Service
 public class FolderService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int ARCHIVE_PAGE_SIZE = 1000;
+
     private final FolderRepository folderRepository;
+    private final FileRepository fileRepository;
     private final JpQueryUtil query;
     private final UniqueNameGeneratorUtil nameGenerator;
+    private final FileAccessValidator accessValidator;
+    private final BlobService blobService;
+    private final CompressionPolicy compressionPolicy;
 
     /**
      * Constructs a new FolderService with the given dependencies.
      *
-     * @param folderRepository The repositories for folder-related database operations.
-     * @param query            The utility for executing JPQL queries related to folders and users.
-     * @param nameGenerator    The utility for generating unique names for folders and files.
+     * @param folderRepository  The repositories for folder-related database operations.
+     * @param fileRepository    The repositories for deleting the files in a folder.
+     * @param query             The utility for executing JPQL queries related to folders and users.
+     * @param nameGenerator     The utility for generating unique names for folders and files.
+     * @param accessValidator   The validator checking the user's permission to access a folder.
+     * @param blobService       The service loading the content of the files in a folder.
+     * @param compressionPolicy The policy deciding which content types are worth compressing in an archive.
      */
     @Autowired
-    public FolderService(FolderRepository folderRepository, JpQueryUtil query, UniqueNameGeneratorUtil nameGenerator) {
+    public FolderService(FolderRepository folderRepository, FileRepository fileRepository, JpQueryUtil query,
+                         UniqueNameGeneratorUtil nameGenerator, FileAccessValidator accessValidator,
+                         BlobService blobService, CompressionPolicy compressionPolicy) {
         this.folderRepository = folderRepository;
+        this.fileRepository = fileRepository;
         this.query = query;
         this.nameGenerator = nameGenerator;
+        this.accessValidator = accessValidator;
+        this.blobService = blobService;
+        this.compressionPolicy = compressionPolicy;
     }
 
     /**
@@ -49,10 +86,11 @@ public class FolderService {
     public SuccessDto createFolder(long userId, String name) {
         try {
             User user = query.loadUserById(userId);
-            Folder newFolder = new Folder(name, user);
-            nameGenerator.setUniqueFolderName(user, newFolder);
-
-            folderRepository.save(newFolder);
+            Folder newFolder = nameGenerator.saveWithUniqueName(() -> {
+                Folder folder = new Folder(name, user);
+                nameGenerator.setUniqueFolderName(user, folder);
+                return folderRepository.saveAndFlush(folder);
+            });
 
             return new SuccessDto(HttpStatus.CREATED,
                     "Successfully created a new folder",
@@ -64,4 +102,162 @@ public class FolderService {
         }
     }
 
-}
+    /**
+     * Lists a page of the files in the specified folder, using keyset pagination on the IDs of the files.
+     * <p>
+     * A page is requested with the cursor returned with the previous page, so pages stay stable while files are
+     * added to or removed from the folder, and are equally cheap to retrieve at any depth of the folder.
+     *
+     * @param userId   The ID of the user listing the folder.
+     * @param folderId The ID of the folder to be listed.
+     * @param cursor   The cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit    The maximum number of files in the page, or {@code null} for the default page size.
+     * @return A SuccessDto containing the page of files and the cursor of the next page.
+     * @throws FolderListingFailureException If the listing operation fails.
+     */
+    public SuccessDto listFiles(long userId, long folderId, Long cursor, Integer limit) {
+        try {
+            int pageSize = validatePageSize(limit);
+            accessValidator.validateFolderAccess(userId, folderId);
+
+            // One more file than requested is fetched, to know whether another page follows
+            List<FileMetadata> files = query.loadFileMetadataPage(folderId, cursor != null ? cursor : 0, pageSize + 1);
+            boolean hasMore = files.size() > pageSize;
+
+            return new SuccessDto(HttpStatus.OK,
+                    "Successfully listed the files in a folder",
+                    new FolderContentSuccessDetail(folderId, hasMore ? files.subList(0, pageSize) : files, hasMore));
+
+        } catch (Exception exception) {
+            throw new FolderListingFailureException("Failed to list files in folder",
+                    new FolderOperationErrorDetail(null, exception.getMessage()));
+        }
+    }
+
+    /**
+     * Deletes a folder along with all of its files.
+     * <p>
+     * The files are deleted with a single set-based statement, so neither the files nor their content are loaded.
+     * The same statement releases the references of the deleted files to their content, and content which is no
+     * longer referenced is reclaimed from the blob store in the background.
+     *
+     * @param userId   The ID of the user deleting the folder.
+     * @param folderId The ID of the folder to be deleted.
+     * @return A SuccessDto indicating the result of the deletion operation.
+     * @throws FolderDeletionFailureException If the deletion operation fails.
+     */
+    @Transactional
+    public SuccessDto deleteFolder(long userId, long folderId) {
+        try {
+            FolderOwnership folder = accessValidator.validateFolderAccess(userId, folderId);
+            long deletedFiles = fileRepository.deleteAndReleaseFilesByFolderId(folderId);
+            folderRepository.deleteFolderById(folderId);
+
+            return new SuccessDto(HttpStatus.OK,
+                    "Successfully deleted a folder and its " + deletedFiles + " files",
+                    new EntitySuccessDetail(folder, "The folder that was deleted"));
+
+        } catch (Exception exception) {
+            throw new FolderDeletionFailureException("Failed to delete folder",
+                    new FolderOperationErrorDetail(null, exception.getMessage()));
+        }
+    }
+
+    /**
+     * Fetches a folder whose contents are about to be archived, validating the user's permission to access it.
+     * <p>
+     * This is done before the archive is streamed, since a failure can no longer be reported once the response has
+     * been committed.
+     *
+     * @param userId   The ID of the user archiving the folder.
+     * @param folderId The ID of the folder to be archived.
+     * @return The ownership of the folder to be archived, which includes its name.
+     * @throws FolderArchiveFailureException If the folder could not be found or the user does not own it.
+     */
+    public FolderOwnership fetchFolderForArchive(long userId, long folderId) {
+        try {
+            return accessValidator.validateFolderAccess(userId, folderId);
+
+        } catch (Exception exception) {
+            throw new FolderArchiveFailureException("Failed to archive folder",
+                    new FolderOperationErrorDetail(null, exception.getMessage()));
+        }
+    }
+
+    /**
+     * Writes a ZIP archive of every file in the specified folder to the given stream.
+     * <p>
+     * The files are fetched one page at a time and their content is copied one file at a time, so memory use stays
+     * bounded regardless of the size of the folder. Content types which are already compressed are added without
+     * compression, since deflating them again costs CPU without making the archive any smaller. Files which are
+     * deleted while the archive is being written are left out of it.
+     *
+     * @param folderId The ID of the folder to be archived, whose access has already been validated.
+     * @param output   The stream receiving the archive, which is not closed.
+     * @throws IOException If the content of a file could not be read, or the archive could not be written.
+     */
+    public void writeArchive(long folderId, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        long afterId = 0;
+        List<FileMetadata> files;
+
+        do {
+            files = query.loadFileMetadataPage(folderId, afterId, ARCHIVE_PAGE_SIZE);
+            for (FileMetadata file : files) {
+                writeArchiveEntry(zip, file);
+                afterId = file.id();
+            }
+        } while (files.size() == ARCHIVE_PAGE_SIZE);
+
+        zip.finish();
+    }
+
+    /**
+     * Adds the content of a single file to an archive, as an entry named after the file.
+     *
+     * @param zip  The archive being written.
+     * @param file The file to be added.
+     * @throws IOException If the content of the file could not be read, or the entry could not be written.
+     */
+    private void writeArchiveEntry(ZipOutputStream zip, FileMetadata file) throws IOException {
+        InputStream content;
+        try {
+            content = blobService.load(file.blobKey(), file.codec(), file.size()).getInputStream();
+        } catch (NoSuchFileException exception) {
+            // The file was deleted after its page was fetched
+            return;
+        }
+
+        try (content) {
+            ZipEntry entry = new ZipEntry(file.name());
+            if (file.uploadedAt() != null) {
+                entry.setTime(file.uploadedAt().toEpochMilli());
+            }
+
+            zip.setLevel(compressionPolicy.isCompressible(file.contentType())
+                    ? Deflater.DEFAULT_COMPRESSION
+                    : Deflater.NO_COMPRESSION);
+            zip.putNextEntry(entry);
+            content.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Validates the requested page size of a folder listing.
+     *
+     * @param limit The requested page size, or {@code null} for the default page size.
+     * @return The page size to use.
+     * @throws IllegalArgumentException If the requested page size is out of bounds.
+     */
+    private int validatePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package me.code.dropfolder.services;
+
+import me.code.dropfolder.models.BlobReference;
+import me.code.dropfolder.storage.BlobStore;
+import me.code.dropfolder.storage.CompressionPolicy;
+import me.code.dropfolder.storage.StagedContent;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Migration moving the content of files which is still kept in the database into the blob store.
+ * <p>
+ * Files used to keep their content in the {@code data} column of the {@code files} table. Since
+ * {@code ddl-auto=update} neither migrates that content nor drops the column, and cannot add the {@code blob_key}
+ * column as {@code NOT NULL} to a populated table, the migration runs once every bean has been created, which is
+ * after the schema has been updated and before any request is served.
+ * <p>
+ * The content of every file without a blob key is staged and stored like uploaded content, which fills in its blob
+ * key, codec and stored size and acquires its reference, one file per transaction. Once every file has been
+ * migrated, the legacy column and any large objects it points at are dropped, and {@code blob_key} is made
+ * {@code NOT NULL} unless a file without content remains. A migration which is interrupted is resumed on the next
+ * start, and does nothing once it is done.
+ */
+@Component
+public class LegacyContentMigration implements SmartInitializingSingleton {
+    private static final String LEGACY_COLUMN = "data";
+    private static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStore blobStore;
+    private final BlobService blobService;
+    private final CompressionPolicy compressionPolicy;
+
+    /**
+     * Constructs a new LegacyContentMigration with the given dependencies.
+     *
+     * @param jdbcTemplate       The template for the statements on the legacy column, which is not mapped.
+     * @param transactionManager The transaction manager in which each file is migrated.
+     * @param blobStore          The storage engine in which the content of files is staged.
+     * @param blobService        The service storing and deduplicating the content of files.
+     * @param compressionPolicy  The policy deciding in which codec the content of files is stored.
+     */
+    @Autowired
+    public LegacyContentMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  BlobStore blobStore, BlobService blobService,
+                                  CompressionPolicy compressionPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blobStore = blobStore;
+        this.blobService = blobService;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Runs the migration once every bean has been created, failing the start of the application if it fails.
+     *
+     * @throws UncheckedIOException If the content of a file could not be stored.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            migrate();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to migrate the content of files into the blob store", exception);
+        }
+    }
+
+    /**
+     * Moves the content of every file still kept in the database into the blob store, then drops the legacy column
+     * and makes the blob key of files mandatory.
+     *
+     * @throws IOException If the content of a file could not be stored.
+     */
+    public void migrate() throws IOException {
+        String legacyColumnType = findLegacyColumnType();
+
+        if (legacyColumnType != null) {
+            // Large objects are only referenced by their OID, and must be read and unlinked explicitly
+            boolean largeObjects = legacyColumnType.equals("oid");
+            String content = largeObjects ? "lo_get(f." + LEGACY_COLUMN + ")" : "f." + LEGACY_COLUMN;
+
+            List<Long> fileIds;
+            do {
+                fileIds = jdbcTemplate.queryForList("SELECT f.id FROM files f WHERE f.blob_key IS NULL" +
+                        " AND f." + LEGACY_COLUMN + " IS NOT NULL ORDER BY f.id LIMIT ?", Long.class, BATCH_SIZE);
+                for (long fileId : fileIds) {
+                    migrateFile(fileId, content);
+                }
+            } while (fileIds.size() == BATCH_SIZE);
+
+            if (largeObjects) {
+                jdbcTemplate.queryForList("SELECT lo_unlink(f." + LEGACY_COLUMN + ") FROM files f" +
+                        " WHERE f." + LEGACY_COLUMN + " IS NOT NULL");
+            }
+            jdbcTemplate.execute("ALTER TABLE files DROP COLUMN " + LEGACY_COLUMN);
+        }
+
+        if (isBlobKeyNullable() && !jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM files f WHERE f.blob_key IS NULL)", Boolean.class)) {
+            jdbcTemplate.execute("ALTER TABLE files ALTER COLUMN blob_key SET NOT NULL");
+        }
+    }
+
+    /**
+     * Moves the content of a single file into the blob store, in a transaction of its own.
+     * <p>
+     * The content of a legacy file was read into memory whenever it was accessed, so it is read the same way here.
+     * The row is locked while its content is stored, so a file migrated concurrently, such as by another instance
+     * starting at the same time, is only migrated once.
+     *
+     * @param fileId  The ID of the file to be migrated.
+     * @param content The SQL expression reading the legacy content of the file.
+     * @throws IOException If the content of the file could not be staged.
+     */
+    private void migrateFile(long fileId, String content) throws IOException {
+        Map<String, Object> file = jdbcTemplate.queryForMap("SELECT f.content_type, " + content + " AS content" +
+                " FROM files f WHERE f.id = ?", fileId);
+        String contentType = (String) file.get("content_type");
+
+        StagedContent stagedContent = blobStore.stage(new ByteArrayInputStream((byte[]) file.get("content")),
+                compressionPolicy.selectCodec(contentType));
+        try {
+            blobService.reserve(stagedContent);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> lockedIds = jdbcTemplate.queryForList("SELECT f.id FROM files f" +
+                        " WHERE f.id = ? AND f.blob_key IS NULL FOR UPDATE", Long.class, fileId);
+                if (lockedIds.isEmpty()) {
+                    return;
+                }
+
+                // Identical content which is already stored keeps its codec, which the file must then refer to
+                BlobReference reference = blobService.store(stagedContent);
+                jdbcTemplate.update("UPDATE files SET blob_key = ?, codec = ?, stored_size = ? WHERE id = ?",
+                        stagedContent.key(), reference.getCodec().name(),
+                        Objects.requireNonNullElse(reference.getStoredSize(), reference.getSize()), fileId);
+            });
+        } finally {
+            blobStore.discard(stagedContent);
+        }
+    }
+
+    /**
+     * Finds the type of the legacy column holding the content of files in the database, if it still exists.
+     *
+     * @return The type of the legacy column, or {@code null} if it has been dropped.
+     */
+    private String findLegacyColumnType() {
+        List<String> types = jdbcTemplate.queryForList("SELECT c.data_type FROM information_schema.columns c" +
+                " WHERE c.table_schema = current_schema() AND c.table_name = 'files' AND c.column_name = ?",
+                String.class, LEGACY_COLUMN);
+        return types.isEmpty() ? null : types.get(0);
+    }
+
+    /**
+     * Checks whether the blob key of files is still allowed to be missing.
+     *
+     * @return {@code true} if the column is nullable, {@code false} otherwise.
+     */
+    private boolean isBlobKeyNullable() {
+        return jdbcTemplate.queryForList("SELECT c.is_nullable FROM information_schema.columns c" +
+                        " WHERE c.table_schema = current_schema() AND c.table_name = 'files' AND c.column_name = 'blob_key'",
+                String.class).contains("YES");
+    }
+
+}
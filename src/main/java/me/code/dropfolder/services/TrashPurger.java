@@ -0,0 +1,51 @@
+package me.code.dropfolder.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Background job permanently deleting the files which have been in the trash for longer than their retention.
+ * <p>
+ * It runs on a schedule meant to fall into quiet periods, and purges the trash in batches, one transaction per
+ * batch, so that neither the row deletions nor the release of content compete with requests for long.
+ */
+@Component
+public class TrashPurger {
+    private static final int BATCH_SIZE = 500;
+
+    private final FileService fileService;
+    private final Duration retention;
+
+    /**
+     * Constructs a new TrashPurger with the given dependencies.
+     *
+     * @param fileService The service purging files from the trash.
+     * @param retention   How long deleted files are kept in the trash, during which they can be restored.
+     */
+    @Autowired
+    public TrashPurger(FileService fileService,
+                       @Value("${dropfolder.trash.retention}") Duration retention) {
+        this.fileService = fileService;
+        this.retention = retention;
+    }
+
+    /**
+     * Purges every file whose retention in the trash has expired, one batch at a time.
+     */
+    @Scheduled(cron = "${dropfolder.trash.purge-cron}")
+    public void purgeExpiredFiles() {
+        Instant deletedBefore = Instant.now().minus(retention);
+
+        int purged;
+
+        do {
+            purged = fileService.purgeTrash(deletedBefore, BATCH_SIZE);
+        } while (purged == BATCH_SIZE);
+    }
+
+}
@@ -0,0 +1,368 @@
+package me.code.dropfolder.services;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.transaction.Transactional;
+import me.code.dropfolder.dtos.CreateUploadSessionDto;
+import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.UploadSessionSuccessDetail;
+import me.code.dropfolder.exceptions.dtos.details.FileUploadErrorDetail;
+import me.code.dropfolder.exceptions.types.CouldNotFindUploadSessionException;
+import me.code.dropfolder.exceptions.types.FileUploadFailureException;
+import me.code.dropfolder.exceptions.types.UnauthorizedFileOperationException;
+import me.code.dropfolder.models.FolderOwnership;
+import me.code.dropfolder.models.UploadSession;
+import me.code.dropfolder.repositories.UploadSessionRepository;
+import me.code.dropfolder.storage.UploadStagingArea;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.NonBlockingTransferUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service class for managing resumable uploads, which transfer the content of a file in separate chunks.
+ * <p>
+ * A client starts an upload session, sends the chunks of the file in any order (possibly in parallel, and
+ * retrying failed chunks), queries which ranges have been received, and finally completes the session.
+ * The chunks are assembled in a staging file, which is moved into the blob store on completion before the
+ * file itself is created through the {@link FileService}.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadStagingArea stagingArea;
+    private final FileService fileService;
+    private final JpQueryUtil query;
+    private final FileAccessValidator accessValidator;
+    private final Duration sessionTimeToLive;
+    private final long maxFileSize;
+
+    /**
+     * Constructs a new UploadSessionService with the given dependencies.
+     *
+     * @param uploadSessionRepository The repositories for upload session database operations.
+     * @param stagingArea             The staging area in which the chunks of uploads are assembled.
+     * @param fileService             The service creating the file once an upload is completed.
+     * @param query                   The utility for executing JPQL queries related to upload sessions.
+     * @param accessValidator         The validator checking the user's permission to upload into a folder.
+     * @param sessionTimeToLive       How long an upload session may stay unfinished before it is discarded.
+     * @param maxFileSize             The maximum size of a file uploaded in chunks.
+     */
+    @Autowired
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                UploadStagingArea stagingArea,
+                                FileService fileService,
+                                JpQueryUtil query,
+                                FileAccessValidator accessValidator,
+                                @Value("${dropfolder.upload.session-time-to-live}") Duration sessionTimeToLive,
+                                @Value("${dropfolder.upload.max-file-size}") DataSize maxFileSize) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.stagingArea = stagingArea;
+        this.fileService = fileService;
+        this.query = query;
+        this.accessValidator = accessValidator;
+        this.sessionTimeToLive = sessionTimeToLive;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    /**
+     * Starts a new resumable upload into the specified folder.
+     *
+     * @param userId The ID of the user initiating the upload.
+     * @param dto    The DTO describing the file to be uploaded.
+     * @return A SuccessDto describing the new upload session.
+     * @throws FileUploadFailureException If the upload session could not be started.
+     */
+    @Transactional
+    public SuccessDto createSession(long userId, CreateUploadSessionDto dto) {
+        try {
+            FolderOwnership targetFolder = accessValidator.validateFolderAccess(userId, dto.folderId());
+            UploadSession session = new UploadSession(userId, targetFolder.id(),
+                    dto.fileName(), dto.contentType(), dto.size(), validateSessionParameters(dto));
+
+            uploadSessionRepository.save(session);
+            stagingArea.create(session.getId());
+
+            return new SuccessDto(
+                    HttpStatus.CREATED,
+                    "Successfully started a resumable upload",
+                    new UploadSessionSuccessDetail(session));
+
+        } catch (Exception exception) {
+            throw new FileUploadFailureException("Failed to start resumable upload",
+                    new FileUploadErrorDetail(dto.fileName(), dto.contentType(), dto.size(), exception));
+        }
+    }
+
+    /**
+     * Receives a single chunk of a resumable upload without blocking, writing each part of it into the staging
+     * file as soon as it arrives.
+     * <p>
+     * Asynchronous processing must have been started for the request providing the chunk. No thread is held while
+     * waiting for the client, and the chunk is registered as received once its last part has been written.
+     *
+     * @param userId     The ID of the user sending the chunk.
+     * @param sessionId  The ID of the upload session.
+     * @param chunkIndex The index of the chunk.
+     * @param offset     The offset of the chunk, which must match the offset implied by its index.
+     * @param content    The non-blocking stream providing the content of the chunk.
+     * @return A future completed with a SuccessDto describing the state of the upload session after receiving the
+     * chunk, or completed exceptionally with a {@link CouldNotFindUploadSessionException},
+     * {@link UnauthorizedFileOperationException} or {@link FileUploadFailureException}.
+     */
+    public CompletableFuture<SuccessDto> receiveChunk(long userId, String sessionId, int chunkIndex, long offset,
+                                                      ServletInputStream content) {
+        UploadSession session;
+        try {
+            session = loadOwnedSession(userId, sessionId);
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+
+        CompletableFuture<SuccessDto> result = new CompletableFuture<>();
+        try {
+            validateChunk(session, chunkIndex, offset);
+
+            receive(content, stagingArea.openForWriting(sessionId), offset, session.getChunkLength(chunkIndex))
+                    .whenComplete((written, failure) -> {
+                        try {
+                            if (failure != null) {
+                                throw (failure instanceof Exception exception) ? exception : new IOException(failure);
+                            }
+                            result.complete(registerChunk(session, chunkIndex, written));
+                        } catch (Exception exception) {
+                            result.completeExceptionally(createChunkFailure(session, exception));
+                        }
+                    });
+        } catch (Exception exception) {
+            result.completeExceptionally(createChunkFailure(session, exception));
+        }
+        return result;
+    }
+
+    /**
+     * Starts receiving a chunk into the channel of its staging file, closing the channel if the transfer could not
+     * be started, since the channel is otherwise only closed once the transfer ends.
+     *
+     * @param content The non-blocking stream providing the content of the chunk.
+     * @param target  The channel of the staging file receiving the chunk.
+     * @param offset  The offset of the chunk.
+     * @param length  The expected length of the chunk.
+     * @return A future completed with the number of bytes written once the whole chunk has been received.
+     */
+    private CompletableFuture<Long> receive(ServletInputStream content, FileChannel target, long offset, long length) {
+        try {
+            return NonBlockingTransferUtil.receive(content, target, offset, length);
+        } catch (RuntimeException exception) {
+            try {
+                target.close();
+            } catch (IOException closeFailure) {
+                exception.addSuppressed(closeFailure);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Registers a completely written chunk as received.
+     *
+     * @param session    The upload session receiving the chunk.
+     * @param chunkIndex The index of the chunk.
+     * @param written    The number of bytes written for the chunk.
+     * @return A SuccessDto describing the state of the upload session after receiving the chunk.
+     * @throws IOException If fewer bytes were written than the chunk is expected to hold.
+     */
+    private SuccessDto registerChunk(UploadSession session, int chunkIndex, long written) throws IOException {
+        long expectedLength = session.getChunkLength(chunkIndex);
+        if (written != expectedLength) {
+            throw new IOException("Received " + written + " bytes for chunk " + chunkIndex
+                    + ", expected " + expectedLength + " bytes");
+        }
+        uploadSessionRepository.registerReceivedChunk(session.getId(), chunkIndex);
+
+        return new SuccessDto(
+                HttpStatus.OK,
+                "Successfully received chunk " + chunkIndex,
+                new UploadSessionSuccessDetail(query.loadUploadSessionById(session.getId())));
+    }
+
+    /**
+     * Creates the exception signalling that a chunk of an upload could not be received.
+     *
+     * @param session   The upload session for which the chunk was sent.
+     * @param exception The cause of the failure.
+     * @return The FileUploadFailureException describing the failure.
+     */
+    private FileUploadFailureException createChunkFailure(UploadSession session, Exception exception) {
+        return new FileUploadFailureException("Failed to receive chunk",
+                new FileUploadErrorDetail(session.getFileName(), session.getContentType(), session.getSize(), exception));
+    }
+
+    /**
+     * Retrieves the state of a resumable upload, including the byte ranges received so far.
+     *
+     * @param userId    The ID of the user querying the upload.
+     * @param sessionId The ID of the upload session.
+     * @return A SuccessDto describing the state of the upload session.
+     * @throws CouldNotFindUploadSessionException If the upload session could not be found.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the upload session.
+     */
+    public SuccessDto getSession(long userId, String sessionId) {
+        UploadSession session = loadOwnedSession(userId, sessionId);
+
+        return new SuccessDto(
+                HttpStatus.OK,
+                "Successfully retrieved resumable upload",
+                new UploadSessionSuccessDetail(session));
+    }
+
+    /**
+     * Completes a resumable upload once all of its chunks have been received,
+     * moving the assembled content into storage and creating the file.
+     * <p>
+     * The session is first claimed for completion by a conditional update, so that of several concurrent or
+     * repeated completions only one creates the file, while the others find no session to complete. The file is
+     * then created in a transaction of its own, after which the session and its staging file are removed.
+     * If the file could not be created, the claim is released and the session and its staging file are left in
+     * place, so completing the upload can be retried without sending any chunk again.
+     *
+     * @param userId    The ID of the user completing the upload.
+     * @param sessionId The ID of the upload session.
+     * @return A SuccessDto describing the file that was created.
+     * @throws CouldNotFindUploadSessionException If the upload session could not be found, or is already being
+     *                                            completed.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the upload session.
+     * @throws FileUploadFailureException         If the upload is incomplete or the file could not be created.
+     */
+    public SuccessDto completeSession(long userId, String sessionId) {
+        UploadSession session = loadOwnedSession(userId, sessionId);
+
+        if (!session.isComplete()) {
+            throw new FileUploadFailureException("Failed to complete resumable upload",
+                    new FileUploadErrorDetail(session.getFileName(), session.getContentType(), session.getSize(),
+                            new IllegalStateException((session.getChunkCount() - session.getReceivedChunks().size())
+                                    + " of " + session.getChunkCount() + " chunks have not been received")));
+        }
+        if (uploadSessionRepository.claimForCompletion(sessionId, LocalDateTime.now()) == 0) {
+            throw new CouldNotFindUploadSessionException("Upload session with id: {" + sessionId
+                    + "} is already being completed");
+        }
+
+        SuccessDto result;
+        try {
+            result = fileService.uploadStagedFile(userId, session.getFolderId(),
+                    session.getFileName(), session.getContentType(), stagingArea.resolve(sessionId));
+        } catch (RuntimeException exception) {
+            uploadSessionRepository.releaseCompletionClaim(sessionId);
+            throw exception;
+        }
+        uploadSessionRepository.deleteById(sessionId);
+
+        try {
+            stagingArea.delete(sessionId);
+        } catch (IOException exception) {
+            // The file has been created, so a staging file which could not be deleted no longer affects the upload
+        }
+        return result;
+    }
+
+    /**
+     * Discards upload sessions that have not been completed within their time to live, along with their staged content.
+     */
+    @Scheduled(fixedDelayString = "${dropfolder.upload.session-purge-interval}")
+    public void purgeExpiredSessions() {
+        LocalDateTime expiry = LocalDateTime.now().minus(sessionTimeToLive);
+
+        for (UploadSession session : uploadSessionRepository.findByCreatedAtBefore(expiry)) {
+            try {
+                stagingArea.delete(session.getId());
+                uploadSessionRepository.delete(session);
+            } catch (IOException exception) {
+                // The staged content is retried on the next purge, since the session is left in place
+            }
+        }
+    }
+
+    /**
+     * Loads an upload session and checks that it is owned by the given user.
+     *
+     * @param userId    The ID of the user accessing the session.
+     * @param sessionId The ID of the upload session.
+     * @return The upload session.
+     * @throws CouldNotFindUploadSessionException If the upload session could not be found.
+     * @throws UnauthorizedFileOperationException If the user is not the owner of the upload session.
+     */
+    private UploadSession loadOwnedSession(long userId, String sessionId) {
+        UploadSession session = query.loadUploadSessionById(sessionId);
+
+        if (session.getUserId() != userId) {
+            throw new UnauthorizedFileOperationException("User with id: {" + userId + "} is not the owner of" +
+                    " upload session with id: {" + sessionId + "}");
+        }
+        return session;
+    }
+
+    /**
+     * Validates the parameters of a new upload session and determines its chunk size.
+     *
+     * @param dto The DTO describing the file to be uploaded.
+     * @return The chunk size of the session.
+     * @throws IllegalArgumentException If the file name, size or chunk size is not valid, or the file is too large.
+     */
+    private int validateSessionParameters(CreateUploadSessionDto dto) {
+        if (dto.fileName() == null || dto.fileName().isBlank()) {
+            throw new IllegalArgumentException("The file name must not be blank");
+        }
+        if (dto.size() < 0) {
+            throw new IllegalArgumentException("The size must not be negative");
+        }
+        if (dto.size() > maxFileSize) {
+            throw new IllegalArgumentException("The size must not exceed " + maxFileSize + " bytes");
+        }
+
+        int chunkSize = (dto.chunkSize() != null) ? dto.chunkSize() : DEFAULT_CHUNK_SIZE;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException(
+                    "The chunk size must be between " + MIN_CHUNK_SIZE + "-" + MAX_CHUNK_SIZE + " bytes");
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Validates the index and offset of a chunk against the upload session.
+     *
+     * @param session    The upload session receiving the chunk.
+     * @param chunkIndex The index of the chunk.
+     * @param offset     The offset of the chunk.
+     * @throws IllegalStateException    If the upload is already being completed, since its staged content may then
+     *                                  no longer be written.
+     * @throws IllegalArgumentException If the index is out of bounds or the offset does not match the index.
+     */
+    private void validateChunk(UploadSession session, int chunkIndex, long offset) {
+        if (session.getCompletingSince() != null) {
+            throw new IllegalStateException("The upload is already being completed");
+        }
+        if (chunkIndex < 0 || chunkIndex >= session.getChunkCount()) {
+            throw new IllegalArgumentException("The chunk index must be between 0-" + (session.getChunkCount() - 1));
+        }
+        if (offset != session.getChunkOffset(chunkIndex)) {
+            throw new IllegalArgumentException("The offset of chunk " + chunkIndex + " must be "
+                    + session.getChunkOffset(chunkIndex));
+        }
+    }
+
+}
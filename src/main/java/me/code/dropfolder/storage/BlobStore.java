@@ -0,0 +1,87 @@
+package me.code.dropfolder.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Storage engine for the content of files, kept apart from the file metadata stored in the database.
+ * <p>
+ * Content is addressed by a key derived from the content itself, which means identical content
+ * is always stored under the same key and only stored once.
+ * <p>
+ * Content is written in two steps: it is first staged, which determines its key, and then committed,
+ * which makes it readable under that key. This lets callers record a reference to the key before the
+ * content becomes visible, and skip storing content that is already present.
+ * <p>
+ * Content is encoded with a {@link ContentCodec} while it is staged, and kept encoded in the store. The key is
+ * derived from the original content regardless of the codec, so the codec must be given to locate stored content.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams the given content into a staging file, deriving its key and encoding it while doing so.
+     *
+     * @param content The stream providing the content to be staged. The stream is not closed by this method.
+     * @param codec   The codec in which the content is stored.
+     * @return The staged content, which must be either committed or discarded.
+     * @throws IOException If an I/O error occurs while staging the content.
+     */
+    StagedContent stage(InputStream content, ContentCodec codec) throws IOException;
+
+    /**
+     * Stages the content of a fully written file, deriving its key.
+     * <p>
+     * The given file is left in place, so it remains available if storing the content fails. Content stored verbatim
+     * is staged as a hard link to the file where the filesystem supports it, rather than being copied; otherwise, the
+     * content is encoded into a new staging file.
+     *
+     * @param file  The file holding the content to be staged, which is not modified or deleted by this method.
+     * @param codec The codec in which the content is stored.
+     * @return The staged content, which must be either committed or discarded.
+     * @throws IOException If an I/O error occurs while staging the content.
+     */
+    StagedContent stage(Path file, ContentCodec codec) throws IOException;
+
+    /**
+     * Commits staged content, making it readable under its key.
+     * <p>
+     * If identical content is already stored, the staged content is not needed and is left for discarding.
+     *
+     * @param stagedContent The staged content to commit.
+     * @throws IOException If an I/O error occurs while committing the content.
+     */
+    void commit(StagedContent stagedContent) throws IOException;
+
+    /**
+     * Discards the staging file of staged content, if it has not been moved into the store by a commit.
+     *
+     * @param stagedContent The staged content to discard.
+     * @throws IOException If an I/O error occurs while discarding the content.
+     */
+    void discard(StagedContent stagedContent) throws IOException;
+
+    /**
+     * Resolves the content stored under the given key as a resource, as it is encoded in the store, without reading it.
+     * <p>
+     * Stores backed by the filesystem return a file-based resource, which allows the content to be
+     * transferred to the client without being copied through the heap.
+     *
+     * @param key   The key of the content to resolve.
+     * @param codec The codec in which the content is stored.
+     * @return A resource representing the encoded content.
+     * @throws IOException If the content could not be found.
+     */
+    Resource load(String key, ContentCodec codec) throws IOException;
+
+    /**
+     * Deletes the content stored under the given key in any codec, if any.
+     *
+     * @param key The key of the content to delete.
+     * @throws IOException If an I/O error occurs while deleting the content.
+     */
+    void delete(String key) throws IOException;
+
+}
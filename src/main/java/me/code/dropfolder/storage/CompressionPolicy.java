@@ -0,0 +1,87 @@
+package me.code.dropfolder.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Policy deciding in which {@link ContentCodec} content is kept in the blob store, based on its content type.
+ * <p>
+ * Only content types listed as compressible, such as text and structured text formats, are compressed.
+ * Everything else is stored verbatim, which includes formats that are already compressed (images, video, audio,
+ * archives, and office documents, which are ZIP archives) and content whose type is unknown, since compressing
+ * them again costs CPU on every upload without saving space.
+ * <p>
+ * The same types are compressed in transfer by the servlet container, which matches them exactly. The types are
+ * therefore matched exactly here as well, so content is never tagged as compressed by the container when it is not.
+ */
+@Component
+public class CompressionPolicy {
+
+    private final boolean enabled;
+    private final List<MediaType> compressibleTypes;
+
+    /**
+     * Constructs a CompressionPolicy compressing the given content types.
+     *
+     * @param enabled           Whether compressible content is compressed at all.
+     * @param compressibleTypes The content types which are compressed, each listed exactly.
+     * @throws IllegalArgumentException If a content type contains a wildcard, which the servlet container does not
+     *                                  support when compressing the same types in transfer.
+     */
+    public CompressionPolicy(@Value("${dropfolder.storage.compression.enabled}") boolean enabled,
+                             @Value("${dropfolder.storage.compression.content-types}") List<String> compressibleTypes) {
+        this.enabled = enabled;
+        this.compressibleTypes = compressibleTypes.stream().map(this::parseCompressibleType).toList();
+    }
+
+    /**
+     * Selects the codec in which content of the given type is stored.
+     *
+     * @param contentType The content type of the content, which may be {@code null}.
+     * @return {@link ContentCodec#GZIP} if the content type is compressible, {@link ContentCodec#IDENTITY} otherwise.
+     */
+    public ContentCodec selectCodec(String contentType) {
+        return (enabled && isCompressible(contentType))
+                ? ContentCodec.GZIP
+                : ContentCodec.IDENTITY;
+    }
+
+    /**
+     * Checks whether the given content type is listed as compressible.
+     *
+     * @param contentType The content type to check, which may be {@code null}.
+     * @return {@code true} if the content type is compressible, {@code false} if it is not or cannot be parsed.
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return compressibleTypes.stream().anyMatch(type -> type.equalsTypeAndSubtype(mediaType));
+
+        } catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a compressible content type, which must be listed exactly.
+     *
+     * @param contentType The compressible content type.
+     * @return The parsed content type.
+     * @throws IllegalArgumentException If the content type contains a wildcard or cannot be parsed.
+     */
+    private MediaType parseCompressibleType(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType.trim());
+        if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+            throw new IllegalArgumentException("Compressible content types must be listed exactly: {" + contentType + "}");
+        }
+        return mediaType;
+    }
+
+}
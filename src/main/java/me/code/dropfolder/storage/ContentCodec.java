@@ -0,0 +1,94 @@
+package me.code.dropfolder.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codecs in which content can be kept in a {@link BlobStore}.
+ * <p>
+ * The codec of stored content is recorded along with its key, since the key is always derived from the original
+ * content. Each codec is named after its HTTP content coding, so content stored in a codec which the client accepts
+ * can be sent as it is stored.
+ */
+public enum ContentCodec {
+
+    /**
+     * Content stored verbatim.
+     */
+    IDENTITY("identity", "") {
+        @Override
+        public OutputStream encode(OutputStream output) {
+            return output;
+        }
+
+        @Override
+        public InputStream decode(InputStream input) {
+            return input;
+        }
+    },
+
+    /**
+     * Content compressed with gzip.
+     */
+    GZIP("gzip", ".gz") {
+        @Override
+        public OutputStream encode(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decode(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String contentEncoding;
+    private final String fileExtension;
+
+    ContentCodec(String contentEncoding, String fileExtension) {
+        this.contentEncoding = contentEncoding;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Wraps a stream so that content written to it is encoded with this codec.
+     *
+     * @param output The stream receiving the encoded content, which is closed along with the returned stream.
+     * @return The stream encoding the content written to it.
+     * @throws IOException If an I/O error occurs while starting the encoding.
+     */
+    public abstract OutputStream encode(OutputStream output) throws IOException;
+
+    /**
+     * Wraps a stream of content encoded with this codec so that the original content is read from it.
+     *
+     * @param input The stream providing the encoded content, which is closed along with the returned stream.
+     * @return The stream providing the decoded content.
+     * @throws IOException If the encoded content could not be read.
+     */
+    public abstract InputStream decode(InputStream input) throws IOException;
+
+    /**
+     * Retrieves the HTTP content coding corresponding to this codec, as used in {@code Content-Encoding}.
+     *
+     * @return The name of the content coding.
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Retrieves the extension of files holding content encoded with this codec.
+     *
+     * @return The file extension, which is empty for content stored verbatim.
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+}
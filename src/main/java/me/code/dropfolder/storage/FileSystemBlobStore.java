@@ -0,0 +1,198 @@
+package me.code.dropfolder.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * A content-addressed {@link BlobStore} keeping content as files on the local filesystem.
+ * <p>
+ * Content is keyed by the hex-encoded SHA-256 hash of its bytes and sharded into two levels of directories
+ * based on the leading characters of the key, e.g. {@code 3f/a9/3fa9...}. Content is first streamed into a
+ * temporary file while being hashed and encoded, and then moved into place on commit, so partially written content
+ * is never visible. Compressed content is kept with the file extension of its codec, such as {@code .gz}.
+ */
+@Component
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String KEY_PATTERN = "[0-9a-f]{64}";
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private final Path root;
+    private final Path tempDirectory;
+
+    /**
+     * Constructs a FileSystemBlobStore storing its content below the given root directory.
+     *
+     * @param root The root directory of the store, created if it does not already exist.
+     * @throws IOException If the directories of the store could not be created.
+     */
+    public FileSystemBlobStore(@Value("${dropfolder.storage.root}") String root) throws IOException {
+        this.root = Path.of(root).toAbsolutePath();
+        this.tempDirectory = this.root.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDirectory);
+    }
+
+    @Override
+    public StagedContent stage(InputStream content, ContentCodec codec) throws IOException {
+        return encodeIntoTempFile(content, codec);
+    }
+
+    @Override
+    public StagedContent stage(Path file, ContentCodec codec) throws IOException {
+        if (codec != ContentCodec.IDENTITY) {
+            try (InputStream content = Files.newInputStream(file)) {
+                return encodeIntoTempFile(content, codec);
+            }
+        }
+
+        MessageDigest digest = createDigest();
+        long size;
+
+        try (InputStream hashingStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = hashingStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return new StagedContent(toKey(digest), size, codec, size, linkIntoTempFile(file));
+    }
+
+    @Override
+    public void commit(StagedContent stagedContent) throws IOException {
+        Path target = resolve(stagedContent.key(), stagedContent.codec());
+        if (Files.exists(target)) {
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(stagedContent.file(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException exception) {
+            // Identical content was committed concurrently, which leaves nothing to do
+        }
+    }
+
+    @Override
+    public void discard(StagedContent stagedContent) throws IOException {
+        Files.deleteIfExists(stagedContent.file());
+    }
+
+    @Override
+    public Resource load(String key, ContentCodec codec) throws IOException {
+        Path path = resolve(key, codec);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException("Could not find blob with key: {" + key + "}");
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        for (ContentCodec codec : ContentCodec.values()) {
+            Files.deleteIfExists(resolve(key, codec));
+        }
+    }
+
+    /**
+     * Streams content into a new temporary file, hashing the original content and encoding it while doing so.
+     *
+     * @param content The stream providing the original content, which is left open for the caller to close.
+     * @param codec   The codec in which the content is written.
+     * @return The staged content, held by the temporary file.
+     * @throws IOException If an I/O error occurs while staging the content.
+     */
+    private StagedContent encodeIntoTempFile(InputStream content, ContentCodec codec) throws IOException {
+        Path tempFile = Files.createTempFile(tempDirectory, "blob-", ".tmp");
+
+        try {
+            MessageDigest digest = createDigest();
+            long size;
+
+            // Only the output is closed here, as closing the hashing stream would close the caller's stream
+            InputStream hashingStream = new DigestInputStream(content, digest);
+            try (OutputStream outputStream = codec.encode(Files.newOutputStream(tempFile))) {
+                size = hashingStream.transferTo(outputStream);
+            }
+            return new StagedContent(toKey(digest), size, codec, Files.size(tempFile), tempFile);
+
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(tempFile);
+            throw exception;
+        }
+    }
+
+    /**
+     * Creates a temporary file sharing the content of the given file, without consuming the given file.
+     * The content is hard linked where the filesystem supports it, and copied otherwise.
+     *
+     * @param file The file whose content is shared.
+     * @return The temporary file holding the content.
+     * @throws IOException If the temporary file could not be created.
+     */
+    private Path linkIntoTempFile(Path file) throws IOException {
+        Path tempFile = tempDirectory.resolve("blob-" + UUID.randomUUID() + ".tmp");
+
+        try {
+            Files.createLink(tempFile, file);
+        } catch (UnsupportedOperationException | FileSystemException exception) {
+            Files.copy(file, tempFile);
+        }
+        return tempFile;
+    }
+
+    /**
+     * Derives the key of content from the digest which has consumed it.
+     *
+     * @param digest The digest which has consumed the whole content.
+     * @return The hex-encoded hash of the content.
+     */
+    private String toKey(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Resolves the location of the content stored under the given key in the given codec.
+     *
+     * @param key   The key of the content.
+     * @param codec The codec in which the content is stored.
+     * @return The path of the content within the store.
+     * @throws IllegalArgumentException If the key is not a valid SHA-256 hex string.
+     */
+    private Path resolve(String key, ContentCodec codec) {
+        if (key == null || !key.matches(KEY_PATTERN)) {
+            throw new IllegalArgumentException("Invalid blob key: {" + key + "}");
+        }
+        return root.resolve(key.substring(0, 2))
+                .resolve(key.substring(2, 4))
+                .resolve(key + codec.getFileExtension());
+    }
+
+    /**
+     * Creates the digest used to derive the key of stored content.
+     *
+     * @return A new MessageDigest instance.
+     */
+    private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported", exception);
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package me.code.dropfolder.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Record describing content that has been staged in a {@link BlobStore}, but not yet committed to it.
+ *
+ * @param key        The key under which the content will be stored, derived from the original content.
+ * @param size       The size of the original content in bytes.
+ * @param codec      The codec in which the content is staged and will be stored.
+ * @param storedSize The size of the content as stored, once encoded with its codec, in bytes.
+ * @param file       The staging file holding the encoded content until it is committed or discarded.
+ */
+public record StagedContent(String key, long size, ContentCodec codec, long storedSize, Path file) {
+}
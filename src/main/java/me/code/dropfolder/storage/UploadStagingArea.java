@@ -0,0 +1,80 @@
+package me.code.dropfolder.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Staging area holding the partially received content of resumable uploads.
+ * <p>
+ * Each upload is assembled in its own staging file, into which chunks are written at their own offsets.
+ * Since chunks never overlap, they can be received in any order and in parallel. The staging area lives
+ * below the root of the blob store, so that a completed staging file can be moved into the store.
+ */
+@Component
+public class UploadStagingArea {
+
+    private static final String STAGING_DIRECTORY = "uploads";
+
+    private final Path directory;
+
+    /**
+     * Constructs an UploadStagingArea below the given storage root.
+     *
+     * @param root The root directory of the blob store.
+     * @throws IOException If the staging directory could not be created.
+     */
+    public UploadStagingArea(@Value("${dropfolder.storage.root}") String root) throws IOException {
+        this.directory = Path.of(root).toAbsolutePath().resolve(STAGING_DIRECTORY);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Creates an empty staging file for the upload with the given ID.
+     *
+     * @param uploadId The ID of the upload.
+     * @throws IOException If the staging file could not be created.
+     */
+    public void create(String uploadId) throws IOException {
+        Files.deleteIfExists(resolve(uploadId));
+        Files.createFile(resolve(uploadId));
+    }
+
+    /**
+     * Opens the staging file of an upload for writing chunks at their own offsets, as their content becomes
+     * available without blocking.
+     *
+     * @param uploadId The ID of the upload.
+     * @return A channel writing into the staging file, which must be closed by the caller.
+     * @throws IOException If the staging file could not be opened.
+     */
+    public FileChannel openForWriting(String uploadId) throws IOException {
+        return FileChannel.open(resolve(uploadId), StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Resolves the staging file of the upload with the given ID.
+     *
+     * @param uploadId The ID of the upload.
+     * @return The path of the staging file.
+     */
+    public Path resolve(String uploadId) {
+        return directory.resolve(uploadId + ".part");
+    }
+
+    /**
+     * Deletes the staging file of the upload with the given ID, if any.
+     *
+     * @param uploadId The ID of the upload.
+     * @throws IOException If the staging file could not be deleted.
+     */
+    public void delete(String uploadId) throws IOException {
+        Files.deleteIfExists(resolve(uploadId));
+    }
+
+}
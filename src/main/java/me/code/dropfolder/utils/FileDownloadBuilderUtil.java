@@ -1,49 +1,204 @@
 package me.code.dropfolder.utils;
 
-import me.code.dropfolder.models.File;
-import org.springframework.core.io.ByteArrayResource;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.storage.ContentCodec;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
 
 /**
  * This class builds a Spring ResponseEntity for downloading a file.
+ * <p>
+ * When the content of the file is backed by the filesystem and the servlet container supports it,
+ * the transfer is handed over to the container's sendfile support, which lets the kernel copy the content
+ * straight from disk to the socket. Where sendfile is not available, such as over TLS, the whole content is
+ * instead sent with non-blocking writes, so no thread waits on a slow client. Requests for ranges of the content
+ * are streamed from the resource in fixed-size chunks, unless an {@code If-Range} header shows that the client's
+ * copy of the file is outdated, in which case the whole content is sent instead.
+ * <p>
+ * Content which is compressed at rest is sent as it is stored, with the matching {@code Content-Encoding}, to clients
+ * accepting that encoding, so it is neither decompressed nor compressed again. Compressible content which is stored
+ * verbatim is left to the compression of the servlet container for such clients, which rules out sendfile.
+ * <p>
+ * Every download is tagged with the hash of its content, which the file already carries as the key of its content
+ * in the blob store, and with the time it was uploaded. Conditional requests for unchanged files are answered with
+ * {@code 304 Not Modified} before the content is even resolved.
  */
 public class FileDownloadBuilderUtil {
 
-    private final File file;
+    /**
+     * Request attributes used by Tomcat to signal and perform sendfile (zero-copy) transfers.
+     */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
 
     /**
-     * Constructs a FileDownloadBuilderUtil with the specified File.
+     * Content sent without blocking is sent for as long as the client accepts it, bounded by the write timeout
+     * of the connection.
+     */
+    private static final long NO_TIMEOUT = 0L;
+
+    private final FileMetadata file;
+    private final ContentCodec contentEncoding;
+    private final boolean compressible;
+
+    /**
+     * Constructs a FileDownloadBuilderUtil with the metadata of a file and the encoding in which it is sent.
      *
-     * @param file The file to be downloaded.
+     * @param file            The metadata of the file to be downloaded.
+     * @param contentEncoding The encoding of the content, as negotiated by {@link #negotiateContentEncoding}.
+     * @param compressible    Whether the content type of the file is compressible.
      */
-    public FileDownloadBuilderUtil(File file) {
+    public FileDownloadBuilderUtil(FileMetadata file, ContentCodec contentEncoding, boolean compressible) {
         this.file = file;
+        this.contentEncoding = contentEncoding;
+        this.compressible = compressible;
+    }
+
+    /**
+     * Negotiates the encoding in which the content of a file is sent: as it is stored if the client accepts the codec
+     * in which it is stored, or decoded otherwise. Ranges always refer to the decoded content.
+     *
+     * @param file    The metadata of the file to be downloaded.
+     * @param request The request for which the download is performed.
+     * @return The codec of the file if its stored content can be sent as it is, {@link ContentCodec#IDENTITY} otherwise.
+     */
+    public static ContentCodec negotiateContentEncoding(FileMetadata file, HttpServletRequest request) {
+        return (file.codec() != ContentCodec.IDENTITY
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && acceptsEncoding(request, file.codec().getContentEncoding()))
+                ? file.codec()
+                : ContentCodec.IDENTITY;
+    }
+
+    /**
+     * Checks the conditional headers of the request against the ETag and upload time of the file, setting
+     * {@code 304 Not Modified} if they match. Either way, the ETag and Last-Modified headers are added to the response.
+     *
+     * @param request  The request for which the download is performed.
+     * @param response The response to which the validators of the file are added.
+     * @return {@code true} if the client's copy of the file is up to date and no content is to be sent,
+     * {@code false} otherwise.
+     */
+    public boolean isNotModified(HttpServletRequest request, HttpServletResponse response) {
+        long lastModified = (file.uploadedAt() != null) ? file.uploadedAt().toEpochMilli() : -1;
+        return new ServletWebRequest(request, response).checkNotModified(generateETag(request), lastModified);
     }
 
     /**
      * Builds a ResponseEntity containing the file for download.
+     * <p>
+     * If the content is sent without blocking, the response is written directly and no ResponseEntity is returned.
      *
-     * @return ResponseEntity containing the file.
+     * @param content         The resource holding the content of the file, in the negotiated encoding.
+     * @param request         The request for which the download is performed.
+     * @param servletResponse The response to which content sent without blocking is written.
+     * @return ResponseEntity containing the file, or {@code null} if the content is sent without blocking.
+     * @throws IOException If the content of the file could not be resolved.
      */
-    public ResponseEntity<ByteArrayResource> buildResponseEntity() {
-        return ResponseEntity.ok()
+    public ResponseEntity<Resource> buildResponseEntity(Resource content, HttpServletRequest request,
+                                                        HttpServletResponse servletResponse) throws IOException {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .headers(generateHeaders())
-                .contentType(generateMediaType())
-                .body(generateResource());
+                .contentType(generateMediaType());
+
+        if (isSendfileSupported(content, request)) {
+            delegateToSendfile(content, request);
+            return response.contentLength(getContentLength()).build();
+        }
+        if (isNonBlockingSendSupported(content, request)) {
+            sendWithoutBlocking(content, request, servletResponse);
+            return null;
+        }
+        if (request.getHeader(HttpHeaders.RANGE) != null && !isRangeRequested(request)) {
+            // Ranges are only served for resources which are not stream-based, so outdated ranges are ignored
+            return response.contentLength(getContentLength()).body(new InputStreamResource(content.getInputStream()));
+        }
+        // The content length is left to the message converter, since it depends on the requested ranges
+        return response.body(content);
     }
 
     /**
-     * Generates HttpHeaders for the file download, including content disposition and length.
+     * Checks whether ranges of the content are to be sent, which is the case if the request has a {@code Range}
+     * header and either no {@code If-Range} header, or one matching the current ETag or upload time of the file.
+     * <p>
+     * As required for {@code If-Range}, an ETag only matches if both are strong, and an upload time only matches
+     * if it is exactly the one last sent in {@code Last-Modified}.
+     *
+     * @param request The request for which the download is performed.
+     * @return {@code true} if ranges of the content are to be sent, {@code false} if the whole content is.
+     */
+    private boolean isRangeRequested(HttpServletRequest request) {
+        if (request.getHeader(HttpHeaders.RANGE) == null) {
+            return false;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            String eTag = generateETag(request);
+            return !eTag.startsWith("W/") && eTag.equals(ifRange);
+        }
+
+        try {
+            // Last-Modified is only sent with a precision of seconds
+            return file.uploadedAt() != null
+                    && request.getDateHeader(HttpHeaders.IF_RANGE) == file.uploadedAt().getEpochSecond() * 1000;
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Generates the ETag of the file as it is sent, from the hash of its content.
+     * <p>
+     * Each encoding of the content is a different representation, so content sent as it is stored is tagged apart
+     * from the decoded content. Content compressed by the servlet container is tagged weakly, since the container
+     * does not compress responses carrying a strong ETag.
+     *
+     * @param request The request for which the download is performed.
+     * @return The ETag of the file.
+     */
+    private String generateETag(HttpServletRequest request) {
+        if (contentEncoding != ContentCodec.IDENTITY) {
+            return "\"" + file.blobKey() + "-" + contentEncoding.getContentEncoding() + "\"";
+        }
+        return isCompressedByContainer(request)
+                ? "W/\"" + file.blobKey() + "\""
+                : "\"" + file.blobKey() + "\"";
+    }
+
+    /**
+     * Generates HttpHeaders for the file download, including content disposition and accepted range units.
      *
      * @return HttpHeaders for the file download.
      */
     private HttpHeaders generateHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentDispositionFormData("attachment", file.getName());
-        headers.setContentLength(file.getSize());
+        headers.setContentDispositionFormData("attachment", file.name());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
 
+        if (contentEncoding != ContentCodec.IDENTITY) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding.getContentEncoding());
+        }
+        if (file.codec() != ContentCodec.IDENTITY || compressible) {
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
         return headers;
     }
 
@@ -53,18 +208,166 @@ public class FileDownloadBuilderUtil {
      * @return MediaType for the file.
      */
     private MediaType generateMediaType() {
-        return (file.getContentType() != null)
-                ? MediaType.parseMediaType(file.getContentType())
+        return (file.contentType() != null)
+                ? MediaType.parseMediaType(file.contentType())
                 : MediaType.APPLICATION_OCTET_STREAM;
     }
 
     /**
-     * Generates a ByteArrayResource for the file data.
+     * Checks whether the whole content can be transferred by the servlet container using sendfile.
+     *
+     * @param content The resource holding the content of the file.
+     * @param request The request for which the download is performed.
+     * @return {@code true} if the full content is requested, is file-backed, is not to be compressed by the container
+     * and the container supports sendfile, {@code false} otherwise.
+     */
+    private boolean isSendfileSupported(Resource content, HttpServletRequest request) {
+        return !isRangeRequested(request)
+                && !isCompressedByContainer(request)
+                && content.isFile()
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE));
+    }
+
+    /**
+     * Checks whether the whole content can be sent using the non-blocking writes of the servlet container.
+     *
+     * @param content The resource holding the content of the file.
+     * @param request The request for which the download is performed.
+     * @return {@code true} if the full content is requested, is file-backed, is not to be compressed by the container
+     * and the request supports asynchronous processing, {@code false} otherwise.
+     */
+    private boolean isNonBlockingSendSupported(Resource content, HttpServletRequest request) {
+        return !isRangeRequested(request)
+                && !isCompressedByContainer(request)
+                && content.isFile()
+                && request.isAsyncSupported();
+    }
+
+    /**
+     * Writes the headers of the download, then sends the whole content asynchronously with non-blocking writes.
+     * <p>
+     * The file is opened before anything is written, so a file which could not be opened is still reported as an
+     * error. Until the transfer has taken ownership of it, the file is closed again on any failure, including
+     * a failure to start asynchronous processing.
+     *
+     * @param content  The resource holding the content of the file.
+     * @param request  The request for which the download is performed.
+     * @param response The response to which the content is written.
+     * @throws IOException If the file backing the content could not be opened.
+     */
+    private void sendWithoutBlocking(Resource content, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FileChannel source = FileChannel.open(content.getFile().toPath(), StandardOpenOption.READ);
+        AsyncContext asyncContext = null;
+
+        try {
+            response.setStatus(HttpStatus.OK.value());
+            generateHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            response.setContentType(generateMediaType().toString());
+            response.setContentLengthLong(getContentLength());
+
+            asyncContext = request.startAsync();
+            asyncContext.setTimeout(NO_TIMEOUT);
+            NonBlockingTransferUtil.send(asyncContext, source, getContentLength());
+
+        } catch (IOException | RuntimeException exception) {
+            source.close();
+            if (asyncContext != null) {
+                asyncContext.complete();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Instructs the servlet container to transfer the whole content using sendfile once the response is committed.
+     *
+     * @param content The resource holding the content of the file.
+     * @param request The request for which the download is performed.
+     * @throws IOException If the file backing the content could not be resolved.
+     */
+    private void delegateToSendfile(Resource content, HttpServletRequest request) throws IOException {
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, content.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, getContentLength());
+    }
+
+    /**
+     * Checks whether the response is to be compressed by the servlet container, which is the case for compressible
+     * content stored verbatim when the client accepts gzip.
+     *
+     * @param request The request for which the download is performed.
+     * @return {@code true} if the container compresses the response, {@code false} otherwise.
+     */
+    private boolean isCompressedByContainer(HttpServletRequest request) {
+        return contentEncoding == ContentCodec.IDENTITY
+                && compressible
+                && acceptsEncoding(request, ContentCodec.GZIP.getContentEncoding());
+    }
+
+    /**
+     * Resolves the length of the content as it is sent, which is its stored size when it is sent as it is stored.
+     *
+     * @return The length of the content in bytes.
+     */
+    private long getContentLength() {
+        return (contentEncoding != ContentCodec.IDENTITY && file.storedSize() != null)
+                ? file.storedSize()
+                : file.size();
+    }
+
+    /**
+     * Checks whether the client accepts the given content coding, according to its {@code Accept-Encoding} headers.
+     * A coding which is listed explicitly takes precedence over the {@code *} wildcard, and a quality of zero
+     * rejects it.
+     *
+     * @param request The request for which the download is performed.
+     * @param coding  The content coding to check.
+     * @return {@code true} if the coding is accepted with a quality above zero, {@code false} otherwise.
+     */
+    private static boolean acceptsEncoding(HttpServletRequest request, String coding) {
+        Double codingQuality = null;
+        Double wildcardQuality = null;
+
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String entry : headers.nextElement().split(",")) {
+                String[] parameters = entry.split(";");
+                String name = parameters[0].trim();
+                double quality = parseQuality(parameters);
+
+                if (name.equalsIgnoreCase(coding)) {
+                    codingQuality = quality;
+                } else if (name.equals("*")) {
+                    wildcardQuality = quality;
+                }
+            }
+        }
+
+        double quality = (codingQuality != null) ? codingQuality
+                : (wildcardQuality != null) ? wildcardQuality
+                : 0;
+        return quality > 0;
+    }
+
+    /**
+     * Parses the quality of an entry of the {@code Accept-Encoding} header, from its parameters.
      *
-     * @return ByteArrayResource for the file data.
+     * @param parameters The coding of the entry followed by its parameters.
+     * @return The quality of the entry, which is {@code 1} if it is not specified and {@code 0} if it is malformed.
      */
-    private ByteArrayResource generateResource() {
-        return new ByteArrayResource(file.getData());
+    private static double parseQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
     }
 
-}
\ No newline at end of file
+}
@@ -3,16 +3,23 @@ package me.code.dropfolder.utils;
 import jakarta.transaction.Transactional;
 import me.code.dropfolder.exceptions.types.CouldNotFindFileException;
 import me.code.dropfolder.exceptions.types.CouldNotFindFolderException;
+import me.code.dropfolder.exceptions.types.CouldNotFindUploadSessionException;
 import me.code.dropfolder.exceptions.types.CouldNotFindUserException;
 import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.FolderOwnership;
+import me.code.dropfolder.models.UploadSession;
 import me.code.dropfolder.models.User;
 import me.code.dropfolder.repositories.FileRepository;
 import me.code.dropfolder.repositories.FolderRepository;
+import me.code.dropfolder.repositories.UploadSessionRepository;
 import me.code.dropfolder.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,65 +32,23 @@ public class JpQueryUtil {
     private final FileRepository fileRepository;
     private final FolderRepository folderRepository;
     private final UserRepository userRepository;
+    private final UploadSessionRepository uploadSessionRepository;
 
     /**
      * Constructs a new instance of JpQueryUtil with the specified repositories.
      *
-     * @param fileRepository   The repositories for file entities.
-     * @param folderRepository The repositories for folder entities.
-     * @param userRepository   The repositories for user entities.
+     * @param fileRepository          The repositories for file entities.
+     * @param folderRepository        The repositories for folder entities.
+     * @param userRepository          The repositories for user entities.
+     * @param uploadSessionRepository The repositories for upload session entities.
      */
     @Autowired
-    public JpQueryUtil(FileRepository fileRepository, FolderRepository folderRepository, UserRepository userRepository) {
+    public JpQueryUtil(FileRepository fileRepository, FolderRepository folderRepository,
+                       UserRepository userRepository, UploadSessionRepository uploadSessionRepository) {
         this.fileRepository = fileRepository;
         this.folderRepository = folderRepository;
         this.userRepository = userRepository;
-    }
-
-    /**
-     * Checks whether the specified user is the owner of the target folder identified by its unique identifier.
-     *
-     * @param user     The user to be checked as the owner.
-     * @param folderId The unique identifier of the target folder.
-     * @return {@code true} if the user is the owner of the folder, {@code false} otherwise.
-     */
-    public boolean isUserOwnerOfTargetFolder(User user, long folderId) {
-        return folderRepository.isUserOwnerOfTargetFolder(user, folderId);
-    }
-
-    /**
-     * Checks whether the file identified by its ID is part of the target folder.
-     *
-     * @param fileId The unique identifier of the file to be checked.
-     * @param folder The target folder to check for file inclusion.
-     * @return {@code true} if the file is part of the folder, {@code false} otherwise.
-     */
-    public boolean isFilePartOfTargetFolder(long fileId, Folder folder) {
-        return fileRepository.isFilePartOfFolder(fileId, folder);
-    }
-
-    /**
-     * Checks whether the given user is not the owner of the target folder.
-     *
-     * @param user   The user to check ownership for.
-     * @param folder The target folder to check ownership against.
-     * @return {@code true} if the user is not the owner of the folder, {@code false} otherwise.
-     */
-    public boolean userIsNotOwnerOfTargetFolder(User user, Folder folder) {
-        return !isUserOwnerOfTargetFolder(user, folder.getId());
-    }
-
-    /**
-     * Checks whether the given user is not the owner of the target file.
-     *
-     * @param user         The user to check ownership for.
-     * @param targetFolder The target folder to check ownership against.
-     * @param targetFile   The target file to check inclusion in the folder.
-     * @return {@code true} if the user is not the owner of the folder and the file is part of the folder, {@code false} otherwise.
-     */
-    public boolean userIsNotOwnerOfTargetFile(User user, Folder targetFolder, File targetFile) {
-        return !isUserOwnerOfTargetFolder(user, targetFolder.getId()) &&
-                isFilePartOfTargetFolder(targetFile.getId(), targetFolder);
+        this.uploadSessionRepository = uploadSessionRepository;
     }
 
     /**
@@ -97,6 +62,18 @@ public class JpQueryUtil {
         return fileRepository.isPreexistingFile(folder, fileName);
     }
 
+    /**
+     * Resolves the numeric suffix which makes the given file name unique within the target folder.
+     *
+     * @param folder        The target folder in which the file name must be unique.
+     * @param fileName      The file name to be made unique.
+     * @param suffixPattern A regular expression matching the suffixed variants of the name, capturing their suffix.
+     * @return {@code 0} if the name itself is free, otherwise one more than the highest suffix in use.
+     */
+    public int findFreeFileNameSuffix(Folder folder, String fileName, String suffixPattern) {
+        return fileRepository.findFreeNameSuffix(folder.getId(), fileName, suffixPattern);
+    }
+
     /**
      * Retrieves the ID of the file with the specified file name.
      *
@@ -111,16 +88,18 @@ public class JpQueryUtil {
     }
 
     /**
-     * Deletes the file with the specified file name.
+     * Permanently deletes the file with the specified name in the specified folder, bypassing the trash.
+     * <p>
+     * The reference of the file to its content is released by the statement deleting the file, and content which is
+     * no longer referenced is reclaimed from the blob store in the background.
      *
+     * @param folder   The folder containing the file.
      * @param fileName The name of the file to be deleted.
      */
     @Transactional
-    public void deleteFile(String fileName) {
-        long id = getFileId(fileName);
-        if (id != -1) {
-            fileRepository.deleteById(id);
-        }
+    public void deleteFile(Folder folder, String fileName) {
+        fileRepository.findByFolderAndName(folder, fileName)
+                .ifPresent(file -> fileRepository.deleteAndReleaseFilesByIds(List.of(file.getId())));
     }
 
     /**
@@ -137,31 +116,64 @@ public class JpQueryUtil {
     }
 
     /**
-     * Deletes the user with the specified username.
+     * Deletes the user with the specified username, along with all of their folders and files.
+     * <p>
+     * Everything is deleted with a few set-based statements, so neither the folders nor the files of the user are
+     * loaded. The references of the files to their content are released by the statement deleting the files, and
+     * content which is no longer referenced is reclaimed from the blob store in the background.
      *
      * @param username The username of the user to be deleted.
      * @throws CouldNotFindUserException If the user with the specified username and id could not be found.
      */
+    @Transactional
     public void deleteUser(String username) {
         long id = getUserId(username);
         if (id != -1) {
-            userRepository.deleteById(id);
+            fileRepository.deleteAndReleaseFilesByUserId(id);
+            folderRepository.deleteFoldersByUserId(id);
+            userRepository.deleteUserById(id);
         } else throw new CouldNotFindUserException(
                 "Could not find user with username: {" + username + "} and id: {" + id + "}");
     }
 
     /**
-     * Retrieves the file with the specified ID.
+     * Retrieves the metadata of the file with the specified ID, without loading the file entity or its folder.
      *
      * @param fileId The unique identifier of the file to retrieve.
-     * @return The file with the specified identifier.
+     * @return The metadata of the file with the specified identifier.
      * @throws CouldNotFindFileException If the file with the specified identifier could not be found.
      */
-    public File loadFileById(long fileId) throws CouldNotFindFileException {
-        return fileRepository.findById(fileId)
+    public FileMetadata loadFileMetadataById(long fileId) throws CouldNotFindFileException {
+        return fileRepository.findMetadataById(fileId)
                 .orElseThrow(() -> new CouldNotFindFileException("could not find file with id: {" + fileId + "}"));
     }
 
+    /**
+     * Retrieves the metadata of the file with the specified ID, provided that it has been moved to the trash.
+     *
+     * @param fileId The unique identifier of the file to retrieve.
+     * @return The metadata of the trashed file with the specified identifier.
+     * @throws CouldNotFindFileException If no trashed file with the specified identifier could be found.
+     */
+    public FileMetadata loadTrashedFileMetadataById(long fileId) throws CouldNotFindFileException {
+        return fileRepository.findTrashedMetadataById(fileId)
+                .orElseThrow(() -> new CouldNotFindFileException("could not find trashed file with id: {" + fileId + "}"));
+    }
+
+    /**
+     * Retrieves the metadata of up to {@code limit} files in the specified folder, following the file with the
+     * given ID in order of their IDs. The files are sought through the index rather than skipped with an offset,
+     * so every page is retrieved at the same cost regardless of its position in the folder.
+     *
+     * @param folderId The unique identifier of the folder whose files to retrieve.
+     * @param afterId  The unique identifier of the file after which to start, or {@code 0} to start from the first file.
+     * @param limit    The maximum number of files to retrieve.
+     * @return The metadata of the retrieved files, ordered by their IDs.
+     */
+    public List<FileMetadata> loadFileMetadataPage(long folderId, long afterId, int limit) {
+        return fileRepository.findMetadataByFolderIdAfter(folderId, afterId, PageRequest.ofSize(limit));
+    }
+
     /**
      * Retrieves the folder with the specified ID.
      *
@@ -174,6 +186,29 @@ public class JpQueryUtil {
                 .orElseThrow(() -> new CouldNotFindFolderException("could not find folder with id: {" + folderId + "}"));
     }
 
+    /**
+     * Retrieves the ownership of the folder with the specified ID, without loading the folder or its owner.
+     *
+     * @param folderId The unique identifier of the folder to retrieve.
+     * @return The ownership of the folder with the specified identifier.
+     * @throws CouldNotFindFolderException If the folder with the specified identifier could not be found.
+     */
+    public FolderOwnership loadFolderOwnershipById(long folderId) throws CouldNotFindFolderException {
+        return folderRepository.findOwnershipById(folderId)
+                .orElseThrow(() -> new CouldNotFindFolderException("could not find folder with id: {" + folderId + "}"));
+    }
+
+    /**
+     * Retrieves a reference to the folder with the specified ID, which is only loaded once its state is accessed.
+     * Its existence must have been checked, and it must only be used within the current transaction.
+     *
+     * @param folderId The unique identifier of the folder.
+     * @return A reference to the folder with the specified identifier.
+     */
+    public Folder referenceFolderById(long folderId) {
+        return folderRepository.getReferenceById(folderId);
+    }
+
     /**
      * Retrieves the user with the specified ID.
      *
@@ -186,6 +221,19 @@ public class JpQueryUtil {
                 .orElseThrow(() -> new CouldNotFindUserException("Could not find user with id: " + userId));
     }
 
+    /**
+     * Retrieves the upload session with the specified ID, including the chunks it has received.
+     *
+     * @param sessionId The unique identifier of the upload session to retrieve.
+     * @return The upload session with the specified identifier.
+     * @throws CouldNotFindUploadSessionException If the upload session with the specified identifier could not be found.
+     */
+    public UploadSession loadUploadSessionById(String sessionId) throws CouldNotFindUploadSessionException {
+        return uploadSessionRepository.findWithReceivedChunksById(sessionId)
+                .orElseThrow(() -> new CouldNotFindUploadSessionException(
+                        "could not find upload session with id: {" + sessionId + "}"));
+    }
+
     /**
      * Retrieves the user with the specified username.
      *
@@ -224,6 +272,18 @@ public class JpQueryUtil {
         return folderRepository.isPreexistingFolder(user, name);
     }
 
+    /**
+     * Resolves the numeric suffix which makes the given folder name unique among the user's folders.
+     *
+     * @param user          The user among whose folders the folder name must be unique.
+     * @param name          The folder name to be made unique.
+     * @param suffixPattern A regular expression matching the suffixed variants of the name, capturing their suffix.
+     * @return {@code 0} if the name itself is free, otherwise one more than the highest suffix in use.
+     */
+    public int findFreeFolderNameSuffix(User user, String name, String suffixPattern) {
+        return folderRepository.findFreeNameSuffix(user.getId(), name, suffixPattern);
+    }
+
     /**
      * Retrieves the folder owned by the specified user with the given name.
      *
@@ -0,0 +1,171 @@
+package me.code.dropfolder.utils;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Utility class for transferring content between the network and files using the non-blocking I/O of the servlet
+ * container.
+ * <p>
+ * Rather than blocking a request thread while waiting on a slow client, the transfer only runs when the container
+ * signals that the connection is ready to be read from or written to, and is suspended in between. No thread is
+ * held while the client is not ready, which applies backpressure without tying the number of concurrent transfers
+ * to the number of threads. Both transfers require asynchronous processing to have been started for the request.
+ */
+public class NonBlockingTransferUtil {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private NonBlockingTransferUtil() {
+    }
+
+    /**
+     * Receives the body of a request into a file at the given offset, reading it whenever it becomes available.
+     *
+     * @param input  The input stream of the request, for which asynchronous processing has been started.
+     * @param target The channel of the file receiving the content, which is closed once the transfer ends.
+     * @param offset The offset within the file at which the content is written.
+     * @param length The maximum number of bytes accepted.
+     * @return A future completed with the number of bytes written once the whole body has been received,
+     * or completed exceptionally if the body exceeds its maximum length or could not be received.
+     */
+    public static CompletableFuture<Long> receive(ServletInputStream input, FileChannel target,
+                                                  long offset, long length) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        input.setReadListener(new ReceivingReadListener(input, target, offset, length, result));
+        return result;
+    }
+
+    /**
+     * Sends a region of a file as the body of a response, writing it whenever the client is ready to accept it.
+     * Asynchronous processing is completed once the whole region has been sent, or the transfer has failed.
+     *
+     * @param asyncContext The asynchronous context of the request.
+     * @param source       The channel of the file providing the content, which is closed once the transfer ends.
+     * @param length       The number of bytes to send, starting from the beginning of the file.
+     * @throws IOException If the output stream of the response could not be opened.
+     */
+    public static void send(AsyncContext asyncContext, FileChannel source, long length) throws IOException {
+        ServletOutputStream output = asyncContext.getResponse().getOutputStream();
+        output.setWriteListener(new SendingWriteListener(asyncContext, output, source, length));
+    }
+
+    /**
+     * Closes a channel once a transfer has ended, ignoring failures since the outcome of the transfer is decided.
+     *
+     * @param channel The channel to close.
+     */
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            // The transfer has already ended, so the channel has nothing left to flush
+        }
+    }
+
+    /**
+     * ReadListener writing every chunk of a request body into a file as soon as it is available.
+     */
+    private static class ReceivingReadListener implements ReadListener {
+
+        private final ServletInputStream input;
+        private final FileChannel target;
+        private final long offset;
+        private final long length;
+        private final CompletableFuture<Long> result;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private long written;
+
+        private ReceivingReadListener(ServletInputStream input, FileChannel target, long offset, long length,
+                                      CompletableFuture<Long> result) {
+            this.input = input;
+            this.target = target;
+            this.offset = offset;
+            this.length = length;
+            this.result = result;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            int read;
+            while (input.isReady() && (read = input.read(buffer)) != -1) {
+                if (written + read > length) {
+                    throw new IOException("The content exceeds its expected length of " + length + " bytes");
+                }
+
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    written += target.write(chunk, offset + written);
+                }
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            closeQuietly(target);
+            result.complete(written);
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            closeQuietly(target);
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * WriteListener sending a file to the client one buffer at a time, for as long as the client accepts it.
+     */
+    private static class SendingWriteListener implements WriteListener {
+
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream output;
+        private final FileChannel source;
+        private final long length;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private long position;
+
+        private SendingWriteListener(AsyncContext asyncContext, ServletOutputStream output,
+                                     FileChannel source, long length) {
+            this.asyncContext = asyncContext;
+            this.output = output;
+            this.source = source;
+            this.length = length;
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            while (output.isReady()) {
+                if (position >= length) {
+                    closeQuietly(source);
+                    asyncContext.complete();
+                    return;
+                }
+
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, (int) Math.min(BUFFER_SIZE, length - position));
+                int read = source.read(chunk, position);
+                if (read == -1) {
+                    throw new IOException("The content ended " + (length - position) + " bytes early");
+                }
+                position += read;
+                output.write(buffer, 0, read);
+            }
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            // The response is already committed, so the failure can only be signalled by closing the connection
+            closeQuietly(source);
+            asyncContext.complete();
+        }
+    }
+
+}
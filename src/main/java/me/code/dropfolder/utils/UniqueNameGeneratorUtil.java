@@ -3,16 +3,32 @@ package me.code.dropfolder.utils;
 import me.code.dropfolder.models.File;
 import me.code.dropfolder.models.Folder;
 import me.code.dropfolder.models.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
 /**
  * Utility class for generating unique names for files and folders.
  * <p>
- * This class provides methods to set unique names for files and folders.
+ * This class provides methods to set unique names for files and folders. A name which is already taken is given
+ * a numeric suffix, one more than the highest suffix in use, which is resolved with a single query regardless of
+ * how many variants of the name exist. Since another name may be taken concurrently, uniqueness is guaranteed by
+ * the database, and a save which conflicts with a concurrently taken name is retried with a newly generated name.
+ * <p>
+ * The names of files in the trash count as taken, since they are kept for the files to be restored under.
  */
 @Component
 public class UniqueNameGeneratorUtil {
 
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+    private static final Set<String> UNIQUE_NAME_CONSTRAINTS = Set.of("uk_files_folder_id_name", "uk_folders_user_id_name");
+
     private final JpQueryUtil query;
 
     /**
@@ -37,27 +53,82 @@ public class UniqueNameGeneratorUtil {
     }
 
     /**
-     * Generates a unique file name within the specified folder based on the provided file name.
+     * Sets unique names for several files which are saved to the same folder together, based on their current names.
      * <p>
-     * The method appends a numeric suffix to the file name until a unique name is found within the folder.
+     * The names are resolved before any of the files is saved, with one query per distinct name. Files sharing a
+     * name are given consecutive suffixes, so the files are unique among each other as well as within the folder.
+     *
+     * @param files The files for which to set unique names, which all belong to the same folder.
+     */
+    public void setUniqueFileNames(List<File> files) {
+        Map<String, Integer> nextSuffixes = new HashMap<>();
+
+        for (File file : files) {
+            String attachedFileName = file.getName();
+            Integer suffix = nextSuffixes.get(attachedFileName);
+            if (suffix == null) {
+                suffix = findFreeFileNameSuffix(file.getFolder(), attachedFileName);
+            }
+
+            file.setName(applyFileNameSuffix(attachedFileName, suffix));
+            // The unsuffixed name counts as the first, just like when the free suffix is resolved by the database
+            nextSuffixes.put(attachedFileName, (suffix == 0) ? 2 : suffix + 1);
+        }
+    }
+
+    /**
+     * Generates a unique file name within the specified folder based on the provided file name.
      *
      * @param folder   The folder in which the uniqueness of the file name is checked.
      * @param fileName The original file name to be made unique.
      * @return A unique file name within the folder.
      */
     private String generateUniqueFileName(Folder folder, String fileName) {
-        String uniqueFileName = fileName;
-        int count = 2;
+        return applyFileNameSuffix(fileName, findFreeFileNameSuffix(folder, fileName));
+    }
 
-        int dotIndex = fileName.indexOf(".");
-        String fileNameWithoutFileExtension = fileName.substring(0, dotIndex);
-        String fileExtension = fileName.substring(dotIndex);
+    /**
+     * Resolves the numeric suffix which makes a file name unique within the specified folder.
+     *
+     * @param folder   The folder in which the uniqueness of the file name is checked.
+     * @param fileName The original file name to be made unique.
+     * @return {@code 0} if the file name is free, otherwise the suffix to apply to it.
+     */
+    private int findFreeFileNameSuffix(Folder folder, String fileName) {
+        int dotIndex = findFileExtensionIndex(fileName);
+        String fileNameWithoutFileExtension = (dotIndex != -1) ? fileName.substring(0, dotIndex) : fileName;
+        String fileExtension = (dotIndex != -1) ? fileName.substring(dotIndex) : "";
 
-        while (query.folderHasExistingFileByName(folder, uniqueFileName)) {
-            uniqueFileName = fileNameWithoutFileExtension + "_" + count + fileExtension;
-            count++;
+        return query.findFreeFileNameSuffix(folder, fileName,
+                generateSuffixPattern(fileNameWithoutFileExtension, fileExtension));
+    }
+
+    /**
+     * Applies a numeric suffix to a file name, inserting it before the file extension if the file name has one.
+     *
+     * @param fileName The original file name.
+     * @param suffix   The suffix to apply, where {@code 0} leaves the file name as it is.
+     * @return The suffixed file name.
+     */
+    private String applyFileNameSuffix(String fileName, int suffix) {
+        if (suffix == 0) {
+            return fileName;
         }
-        return uniqueFileName;
+        int dotIndex = findFileExtensionIndex(fileName);
+        return (dotIndex != -1)
+                ? fileName.substring(0, dotIndex) + "_" + suffix + fileName.substring(dotIndex)
+                : fileName + "_" + suffix;
+    }
+
+    /**
+     * Finds the index at which the extension of a file name starts.
+     *
+     * @param fileName The file name.
+     * @return The index of the dot starting the extension, or {@code -1} if the file name has no extension.
+     */
+    private int findFileExtensionIndex(String fileName) {
+        // A leading dot marks a hidden file rather than an extension
+        return fileName.indexOf(".", 1);
     }
 
     /**
@@ -74,22 +145,82 @@ public class UniqueNameGeneratorUtil {
 
     /**
      * Generates a unique folder name within the specified user's folders based on the provided folder name.
-     * <p>
-     * The method appends a numeric suffix to the folder name until a unique name is found within the user's folders.
      *
      * @param user       The user for whom the uniqueness of the folder name is checked.
      * @param folderName The original folder name to be made unique.
      * @return A unique folder name within the user's folders.
      */
     private String generateUniqueFolderName(User user, String folderName) {
-        String uniqueFolderName = folderName;
-        int count = 2;
+        int suffix = query.findFreeFolderNameSuffix(user, folderName, generateSuffixPattern(folderName, ""));
 
-        while (query.userHasExistingFolderByName(user, uniqueFolderName)) {
-            uniqueFolderName = folderName + "_" + count;
-            count++;
+        return (suffix == 0)
+                ? folderName
+                : folderName + "_" + suffix;
+    }
+
+    /**
+     * Generates a regular expression matching the suffixed variants of a name, capturing their numeric suffix.
+     *
+     * @param nameWithoutExtension The name, without its extension.
+     * @param extension            The extension of the name, which may be empty.
+     * @return A regular expression matching {@code <name>_<suffix><extension>}.
+     */
+    private String generateSuffixPattern(String nameWithoutExtension, String extension) {
+        return "^" + quote(nameWithoutExtension) + "_([1-9][0-9]{0,8})" + quote(extension) + "$";
+    }
+
+    /**
+     * Escapes every character of the given text which is not a letter or digit, so it is matched literally.
+     *
+     * @param text The text to be matched literally.
+     * @return The escaped text.
+     */
+    private String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() * 2);
+        text.codePoints().forEach(character -> {
+            if (!Character.isLetterOrDigit(character)) {
+                quoted.append('\\');
+            }
+            quoted.appendCodePoint(character);
+        });
+        return quoted.toString();
+    }
+
+    /**
+     * Performs a save operation which generates a unique name, retrying it while it conflicts with a name
+     * that has been taken concurrently. Each attempt must generate the name anew, in its own transaction.
+     *
+     * @param saveOperation The operation generating a unique name and saving the named entity.
+     * @param <T>           The type of the saved entity.
+     * @return The saved entity.
+     * @throws DataIntegrityViolationException If the save operation keeps conflicting, or fails for another reason.
+     */
+    public <T> T saveWithUniqueName(Supplier<T> saveOperation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return saveOperation.get();
+            } catch (DataIntegrityViolationException exception) {
+                if (attempt == MAX_SAVE_ATTEMPTS || !isUniqueNameConflict(exception)) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given exception was caused by a violation of the uniqueness of file or folder names.
+     *
+     * @param exception The exception to be checked.
+     * @return {@code true} if a unique name constraint was violated, {@code false} otherwise.
+     */
+    private boolean isUniqueNameConflict(DataIntegrityViolationException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName() != null
+                        && UNIQUE_NAME_CONSTRAINTS.contains(violation.getConstraintName().toLowerCase());
+            }
         }
-        return uniqueFolderName;
+        return false;
     }
 
 }
@@ -0,0 +1,265 @@
+package me.code.dropfolder.cucumberglue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.User;
+import me.code.dropfolder.security.JwtTokenUtil;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.MockDataFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cucumber feature test class for transfers which are in progress at the same time.
+ * Defines step definitions using Cucumber annotations to test that a transfer does not hold a database connection
+ * while its content is sent.
+ *
+ * <p>
+ * The uploads are sent to the running server over HTTP, so the whole request is handled as it is in production,
+ * and their content is held back halfway until every upload has started staging it. If a request held its database
+ * connection for the whole transfer, the uploads beyond the size of the connection pool would wait for a connection
+ * and never start staging their content.
+ * </p>
+ */
+public class ConcurrentTransferFeatureTest {
+
+    private static final int EXCESS_UPLOADS = 5;
+    private static final int CONTENT_SIZE = 64 * 1024;
+    private static final Duration STAGING_TIMEOUT = Duration.ofSeconds(10);
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final JpQueryUtil query;
+    private final MockDataFactory mock;
+    private final int maximumPoolSize;
+    private final Path tempDirectory;
+    private final HttpClient client;
+    private final URI baseUri;
+
+    private User mockUser;
+    private Folder mockFolder;
+    private String token;
+    private CountDownLatch contentReleased;
+    private List<CompletableFuture<HttpResponse<String>>> uploads;
+
+    /**
+     * Constructor for the ConcurrentTransferFeatureTest class.
+     *
+     * @param jwtTokenUtil The utility generating the token which authenticates the requests.
+     * @param query        The JpQueryUtil used for querying data.
+     * @param mock         The MockDataFactory used for creating mock data.
+     * @param dataSource   The pooled data source, whose maximum size bounds the connections held at once.
+     * @param storageRoot  The root directory of the blob store, below which uploads are staged.
+     * @param port         The port on which the server is listening.
+     */
+    public ConcurrentTransferFeatureTest(
+            JwtTokenUtil jwtTokenUtil,
+            JpQueryUtil query,
+            MockDataFactory mock,
+            DataSource dataSource,
+            @Value("${dropfolder.storage.root}") String storageRoot,
+            @Value("${local.server.port}") int port) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.query = query;
+        this.mock = mock;
+        this.maximumPoolSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+        this.tempDirectory = Path.of(storageRoot).toAbsolutePath().resolve("tmp");
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    /**
+     * Setup method annotated with {@code @Before} to create mock user data before the test scenario.
+     */
+    @Before("@setupTransferData")
+    public void setUpMockData() {
+        mockUser = mock.createMockUser("TransferUser", "Mock_password1");
+        token = jwtTokenUtil.generateToken(mockUser);
+    }
+
+    /**
+     * Cleanup method annotated with {@code @After} to release any held back upload and delete the mock user data.
+     * Note: Deleting a user will also delete all of that user's folders and files.
+     */
+    @After("@cleanupTransferData")
+    public void cleanUpMockData() {
+        if (contentReleased != null) {
+            contentReleased.countDown();
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                    .completeOnTimeout(null, 30, TimeUnit.SECONDS)
+                    .exceptionally(failure -> null)
+                    .join();
+        }
+        query.deleteUser(mockUser.getUsername());
+    }
+
+    /**
+     * Step definition for the scenario where the user has a folder into which files are uploaded.
+     */
+    @Given("the user has a folder to upload into")
+    public void theUserHasAFolderToUploadInto() {
+        mockFolder = mock.createMockFolder(mockUser, "transfers");
+
+        assertTrue(query.userHasExistingFolderByName(mockUser, "transfers"));
+    }
+
+    /**
+     * Step definition for the scenario where more uploads than the connection pool holds are started, each of which
+     * sends half of its content and then waits. The step waits until every upload has started staging its content.
+     *
+     * @throws IOException          If the staging directory could not be listed.
+     * @throws InterruptedException If the step is interrupted while waiting for the uploads.
+     */
+    @When("more uploads than the database has connections are sending their content at once")
+    public void moreUploadsThanTheDatabaseHasConnectionsAreSendingTheirContentAtOnce()
+            throws IOException, InterruptedException {
+        int uploadCount = maximumPoolSize + EXCESS_UPLOADS;
+        long stagingFilesBefore = countStagingFiles();
+        contentReleased = new CountDownLatch(1);
+        uploads = new ArrayList<>();
+
+        for (int index = 0; index < uploadCount; index++) {
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/file/upload/" + mockFolder.getId()))
+                    .header("Authorization", token)
+                    .header("Content-Disposition", "attachment; filename=\"transfer_" + index + ".txt\"")
+                    .header("Content-Type", "text/plain")
+                    .PUT(HttpRequest.BodyPublishers.ofInputStream(() -> new HeldBackContent(contentReleased)))
+                    .build();
+            uploads.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        long deadline = System.nanoTime() + STAGING_TIMEOUT.toNanos();
+        while (countStagingFiles() - stagingFilesBefore < uploadCount) {
+            assertTrue(System.nanoTime() < deadline,
+                    "Only " + (countStagingFiles() - stagingFilesBefore) + " of " + uploadCount
+                            + " uploads started staging their content, the others are waiting for a connection");
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the folder is listed while the uploads are in progress,
+     * which needs a database connection of its own.
+     *
+     * @throws IOException          If the request could not be sent.
+     * @throws InterruptedException If the step is interrupted while waiting for the response.
+     */
+    @Then("the folder should still be listed while those uploads are in progress")
+    public void theFolderShouldStillBeListedWhileThoseUploadsAreInProgress() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/folder/" + mockFolder.getId() + "/files"))
+                .header("Authorization", token)
+                .timeout(STAGING_TIMEOUT)
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertTrue(uploads.stream().noneMatch(CompletableFuture::isDone));
+    }
+
+    /**
+     * Step definition for the scenario where the rest of the content is sent, after which every upload should
+     * have created a file.
+     */
+    @Then("every upload should succeed once its content has been sent")
+    public void everyUploadShouldSucceedOnceItsContentHasBeenSent() {
+        contentReleased.countDown();
+
+        for (CompletableFuture<HttpResponse<String>> upload : uploads) {
+            HttpResponse<String> response = upload.orTimeout(30, TimeUnit.SECONDS).join();
+            assertEquals(HttpStatus.CREATED.value(), response.statusCode(), response.body());
+        }
+        assertEquals(uploads.size(), query.loadFileMetadataPage(mockFolder.getId(), 0, uploads.size() + 1).size());
+    }
+
+    /**
+     * Counts the staging files in the blob store, one of which is created by every upload staging its content.
+     *
+     * @return The number of staging files.
+     * @throws IOException If the staging directory could not be listed.
+     */
+    private long countStagingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDirectory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * Stream providing content of which the first half is available at once, while the second half is held back
+     * until it is released.
+     */
+    private static class HeldBackContent extends InputStream {
+
+        private final CountDownLatch released;
+        private int position;
+
+        private HeldBackContent(CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] content = new byte[1];
+            return (read(content, 0, 1) == -1) ? -1 : content[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position == CONTENT_SIZE) {
+                return -1;
+            }
+            if (position == CONTENT_SIZE / 2) {
+                awaitRelease();
+            }
+
+            // The first half is never read along with the second, so it is sent before the content is held back
+            int end = (position < CONTENT_SIZE / 2) ? CONTENT_SIZE / 2 : CONTENT_SIZE;
+            int count = Math.min(length, end - position);
+            for (int index = 0; index < count; index++) {
+                buffer[offset + index] = (byte) ('a' + (position++ % 26));
+            }
+            return count;
+        }
+
+        /**
+         * Waits until the rest of the content is released.
+         *
+         * @throws IOException If the content is not released in time.
+         */
+        private void awaitRelease() throws IOException {
+            try {
+                if (!released.await(60, TimeUnit.SECONDS)) {
+                    throw new IOException("The content was never released");
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException(exception);
+            }
+        }
+    }
+
+}
@@ -1,7 +1,10 @@
 package me.code.dropfolder.cucumberglue;
 
 import io.cucumber.spring.CucumberContextConfiguration;
+import me.code.dropfolder.services.BlobService;
+import me.code.dropfolder.storage.BlobStore;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.TestPropertySource;
 
 /**
@@ -10,9 +13,18 @@ import org.springframework.test.context.TestPropertySource;
  * Uses {@code @TestPropertySource} to set up and connect to the test database.
  * Configures the web environment with a random port using {@code @SpringBootTest}.
  * {@code @CucumberContextConfiguration} allows Spring Boot to integrate with Cucumber for testing.
+ * The {@link BlobService} and {@link BlobStore} are replaced by spies, so scenarios can simulate failures while
+ * storing content.
  */
 @TestPropertySource("classpath:application-test.properties")
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @CucumberContextConfiguration
 public class CucumberSpringConfiguration {
+
+    @SpyBean
+    private BlobService blobService;
+
+    @SpyBean
+    private BlobStore blobStore;
+
 }
\ No newline at end of file
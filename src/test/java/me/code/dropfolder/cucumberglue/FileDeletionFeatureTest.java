@@ -6,23 +6,38 @@ import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.BatchDeletionSuccessDetail;
 import me.code.dropfolder.exceptions.types.CouldNotFindFileException;
 import me.code.dropfolder.exceptions.types.FileDeletionFailureException;
+import me.code.dropfolder.exceptions.types.FileRestoreFailureException;
+import me.code.dropfolder.exceptions.types.UnauthorizedFileOperationException;
 import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.FolderOwnership;
 import me.code.dropfolder.models.User;
+import me.code.dropfolder.repositories.BlobReferenceRepository;
+import me.code.dropfolder.services.BlobReclaimer;
+import me.code.dropfolder.services.FileAccessValidator;
 import me.code.dropfolder.services.FileService;
+import me.code.dropfolder.storage.BlobStore;
 import me.code.dropfolder.utils.JpQueryUtil;
 import me.code.dropfolder.utils.MockDataFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Cucumber feature test class for file deletion scenarios.
- * Defines step definitions using Cucumber annotations to test the file deletion with mock data.
+ * Defines step definitions using Cucumber annotations to test the file deletion and restore with mock data.
  *
  * <p>
  * The class sets up and cleans up mock user data before and after test scenarios and defines step definitions
@@ -32,6 +47,10 @@ import static org.junit.jupiter.api.Assertions.*;
 public class FileDeletionFeatureTest {
 
     private final FileService fileService;
+    private final FileAccessValidator accessValidator;
+    private final BlobReclaimer blobReclaimer;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final BlobStore blobStore;
     private final JpQueryUtil query;
     private final MockDataFactory mock;
 
@@ -40,19 +59,34 @@ public class FileDeletionFeatureTest {
     private User secondaryMockUser;
     private Folder secondaryMockFolder;
     private File mockFile;
+    private List<Long> mockFileIds;
+    private List<FileMetadata> sharedContentFiles;
+    private BatchDeletionSuccessDetail batchDeletionResult;
 
     /**
      * Constructor for the FileDeletionFeatureTest class.
      *
-     * @param fileService The file services used for file-related operations.
-     * @param query       The JpQueryUtil used for querying data.
-     * @param mock        The MockDataFactory used for creating mock data.
+     * @param fileService             The file services used for file-related operations.
+     * @param accessValidator         The validator checking the user's permission to access files and folders.
+     * @param blobReclaimer           The reclaimer removing content which is no longer referenced.
+     * @param blobReferenceRepository The repositories for counting references to stored content.
+     * @param blobStore               The storage engine holding the content of files.
+     * @param query                   The JpQueryUtil used for querying data.
+     * @param mock                    The MockDataFactory used for creating mock data.
      */
     public FileDeletionFeatureTest(
             FileService fileService,
+            FileAccessValidator accessValidator,
+            BlobReclaimer blobReclaimer,
+            BlobReferenceRepository blobReferenceRepository,
+            BlobStore blobStore,
             JpQueryUtil query,
             MockDataFactory mock) {
         this.fileService = fileService;
+        this.accessValidator = accessValidator;
+        this.blobReclaimer = blobReclaimer;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.blobStore = blobStore;
         this.query = query;
         this.mock = mock;
     }
@@ -69,7 +103,7 @@ public class FileDeletionFeatureTest {
 
     /**
      * Cleanup method annotated with {@code @After} to delete the mock data after the test scenario.
-     * Note: Due to entity relationship settings, deleting a user will also delete all of that user's folders and files.
+     * Note: Deleting a user will also delete all of that user's folders and files.
      */
     @After("@cleanupDeletionData")
     public void cleanupMockData() {
@@ -92,7 +126,10 @@ public class FileDeletionFeatureTest {
                 fileService.upload(userId, folderId, attachedMockFile).toResponseEntity();
 
         assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
-        assertTrue(query.isUserOwnerOfTargetFolder(primaryMockUser, primaryMockFolder.getId()));
+        FolderOwnership ownership = accessValidator.validateFolderAccess(userId, folderId);
+        assertEquals(folderId, ownership.id());
+        assertEquals(primaryMockFolder.getName(), ownership.name());
+        assertEquals(userId, ownership.ownerId());
         assertTrue(query.folderHasExistingFileByName(primaryMockFolder, fileName));
     }
 
@@ -105,7 +142,7 @@ public class FileDeletionFeatureTest {
     public void theUserDeletesTheFileWithName(String fileName) {
         mockFile = query.loadFileByFolderAndName(primaryMockFolder, fileName);
 
-        query.deleteFile(fileName);
+        query.deleteFile(primaryMockFolder, fileName);
 
         assertThrows(CouldNotFindFileException.class,
                 () -> query.loadFileByFolderAndName(primaryMockFolder, fileName));
@@ -118,7 +155,7 @@ public class FileDeletionFeatureTest {
     public void theFileShouldBeSuccessfullyDeletedFromTheUsersFolder() {
         long mockFileId = mockFile.getId();
 
-        assertFalse(query.isFilePartOfTargetFolder(mockFileId, primaryMockFolder));
+        assertThrows(CouldNotFindFileException.class, () -> query.loadFileMetadataById(mockFileId));
     }
 
     /**
@@ -146,8 +183,46 @@ public class FileDeletionFeatureTest {
         File fileOwnedByOtherUser =
                 mock.createMockFile(otherUsersId, otherUsersFolderId, fileName);
 
-        assertTrue(query.userIsNotOwnerOfTargetFolder(secondaryMockUser, primaryMockFolder));
-        assertTrue(query.userIsNotOwnerOfTargetFile(secondaryMockUser, primaryMockFolder, fileOwnedByOtherUser));
+        assertThrows(UnauthorizedFileOperationException.class,
+                () -> accessValidator.validateFolderAccess(secondaryMockUser.getId(), otherUsersFolderId));
+        assertThrows(UnauthorizedFileOperationException.class, () -> accessValidator.validateFileAccess(
+                secondaryMockUser.getId(), otherUsersFolderId, fileOwnedByOtherUser.getId()));
+    }
+
+    /**
+     * Step definition for the scenario where another user is denied access to the file, both through the folder
+     * containing it and through a folder of their own.
+     *
+     * @param fileName The name of the file in the user's folder.
+     */
+    @Then("access to the file named {string} should be rejected for another user")
+    public void accessToTheFileShouldBeRejectedForAnotherUser(String fileName) {
+        File file = query.loadFileByFolderAndName(primaryMockFolder, fileName);
+        Folder otherUsersFolder = mock.createMockFolder(secondaryMockUser, "other_users_folder");
+
+        assertThrows(UnauthorizedFileOperationException.class, () -> accessValidator.validateFileAccess(
+                secondaryMockUser.getId(), primaryMockFolder.getId(), file.getId()));
+        assertThrows(UnauthorizedFileOperationException.class, () -> accessValidator.validateFileAccess(
+                secondaryMockUser.getId(), otherUsersFolder.getId(), file.getId()));
+    }
+
+    /**
+     * Step definition for the scenario where the owner of the file is denied access to it through another of their
+     * folders, which does not contain the file.
+     *
+     * @param fileName The name of the file in the user's folder.
+     */
+    @Then("access to the file named {string} should be rejected through another folder of the user")
+    public void accessToTheFileShouldBeRejectedThroughAnotherFolderOfTheUser(String fileName) {
+        File file = query.loadFileByFolderAndName(primaryMockFolder, fileName);
+        Folder otherFolder = mock.createMockFolder(primaryMockUser, "other_folder");
+
+        assertDoesNotThrow(() -> accessValidator.validateFileAccess(
+                primaryMockUser.getId(), primaryMockFolder.getId(), file.getId()));
+        assertThrows(UnauthorizedFileOperationException.class, () -> accessValidator.validateFileAccess(
+                primaryMockUser.getId(), otherFolder.getId(), file.getId()));
+        assertThrows(FileDeletionFailureException.class,
+                () -> fileService.delete(primaryMockUser.getId(), otherFolder.getId(), file.getId()));
     }
 
     /**
@@ -175,7 +250,8 @@ public class FileDeletionFeatureTest {
     public void theUserOwnsAFolderNamed(String folderName) {
         secondaryMockFolder = mock.createMockFolder(secondaryMockUser, folderName);
 
-        assertTrue(query.isUserOwnerOfTargetFolder(secondaryMockUser, secondaryMockFolder.getId()));
+        assertDoesNotThrow(
+                () -> accessValidator.validateFolderAccess(secondaryMockUser.getId(), secondaryMockFolder.getId()));
     }
 
     /**
@@ -187,7 +263,8 @@ public class FileDeletionFeatureTest {
     public void theUserDoesNotHaveAFileNamedInTheFolder(String id) {
         long nonExistingFileId = Long.parseLong(id);
 
-        assertFalse(query.isFilePartOfTargetFolder(nonExistingFileId, secondaryMockFolder));
+        assertThrows(CouldNotFindFileException.class, () -> accessValidator.validateFileAccess(
+                secondaryMockUser.getId(), secondaryMockFolder.getId(), nonExistingFileId));
     }
 
     /**
@@ -205,4 +282,153 @@ public class FileDeletionFeatureTest {
         assertThrows(FileDeletionFailureException.class,
                 () -> fileService.delete(userId, usersFolderId, nonExistingFileId));
     }
+
+    /**
+     * Step definition for the scenario where the user moves a file with a given name to the trash.
+     *
+     * @param fileName The name of the file to be moved to the trash.
+     */
+    @When("the user moves the file with name {string} to the trash")
+    public void theUserMovesTheFileWithNameToTheTrash(String fileName) {
+        mockFile = query.loadFileByFolderAndName(primaryMockFolder, fileName);
+
+        SuccessDto result = fileService.delete(primaryMockUser.getId(), primaryMockFolder.getId(), mockFile.getId());
+
+        assertEquals(HttpStatus.OK, result.getStatus());
+        assertThrows(CouldNotFindFileException.class, () -> query.loadFileMetadataById(mockFile.getId()));
+        assertThrows(FileDeletionFailureException.class,
+                () -> fileService.delete(primaryMockUser.getId(), primaryMockFolder.getId(), mockFile.getId()));
+    }
+
+    /**
+     * Step definition for the scenario where the trashed file is restored, and only by its owner.
+     */
+    @Then("the file should be restored when the user restores it from the trash")
+    public void theFileShouldBeRestoredWhenTheUserRestoresItFromTheTrash() {
+        long fileId = mockFile.getId();
+
+        assertThrows(FileRestoreFailureException.class,
+                () -> fileService.restore(secondaryMockUser.getId(), primaryMockFolder.getId(), fileId));
+
+        SuccessDto result = fileService.restore(primaryMockUser.getId(), primaryMockFolder.getId(), fileId);
+
+        assertEquals(HttpStatus.OK, result.getStatus());
+        assertEquals(fileId, query.loadFileMetadataById(fileId).id());
+        assertThrows(FileRestoreFailureException.class,
+                () -> fileService.restore(primaryMockUser.getId(), primaryMockFolder.getId(), fileId));
+    }
+
+    /**
+     * Step definition for the scenario where the user owns a folder containing several files.
+     *
+     * @param fileNames The comma-separated names of the files in the user's folder.
+     */
+    @Given("the user owns a folder containing the files named {string}")
+    public void theUserOwnsAFolderContainingTheFilesNamed(String fileNames) {
+        mockFileIds = new ArrayList<>();
+
+        for (String fileName : fileNames.split(",")) {
+            File file = mock.createMockFile(primaryMockUser.getId(), primaryMockFolder.getId(), fileName);
+            mockFileIds.add(file.getId());
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the user deletes their files in one batch, along with a file which
+     * does not exist.
+     *
+     * @param id The ID of the non-existing file.
+     */
+    @When("the user deletes those files along with the file with id {string} in one batch")
+    public void theUserDeletesThoseFilesAlongWithTheFileWithIdInOneBatch(String id) {
+        List<Long> requestedIds = new ArrayList<>(mockFileIds);
+        requestedIds.add(Long.parseLong(id));
+
+        SuccessDto result = fileService.deleteBatch(primaryMockUser.getId(), primaryMockFolder.getId(), requestedIds);
+        batchDeletionResult = (BatchDeletionSuccessDetail) result.getSuccessDetails();
+
+        assertEquals(HttpStatus.MULTI_STATUS, result.getStatus());
+        assertThrows(FileDeletionFailureException.class,
+                () -> fileService.deleteBatch(secondaryMockUser.getId(), primaryMockFolder.getId(), mockFileIds));
+    }
+
+    /**
+     * Step definition for the scenario where every file of the folder, and only those, should have been deleted.
+     */
+    @Then("only the files in the folder should be deleted")
+    public void onlyTheFilesInTheFolderShouldBeDeleted() {
+        assertEquals(mockFileIds.size(), batchDeletionResult.getDeletedCount());
+        assertEquals(1, batchDeletionResult.getFailedCount());
+
+        for (BatchDeletionSuccessDetail.FileResult file : batchDeletionResult.getFiles()) {
+            assertEquals(mockFileIds.contains(file.fileId()), file.deleted());
+        }
+        for (long fileId : mockFileIds) {
+            assertThrows(CouldNotFindFileException.class, () -> query.loadFileMetadataById(fileId));
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the user uploads the same content twice into their folder,
+     * which is stored once and referenced by both files. The content is random, so no other file shares it.
+     *
+     * @param fileName The name under which the content is uploaded both times.
+     */
+    @Given("the user owns a folder containing two files named {string} with identical content")
+    public void theUserOwnsAFolderContainingTwoFilesWithIdenticalContent(String fileName) {
+        byte[] content = new byte[4096];
+        new Random().nextBytes(content);
+        MultipartFile attachedFile = new MockMultipartFile(fileName, fileName, "application/octet-stream", content);
+
+        for (int upload = 0; upload < 2; upload++) {
+            SuccessDto result = fileService.upload(primaryMockUser.getId(), primaryMockFolder.getId(), attachedFile);
+            assertEquals(HttpStatus.CREATED, result.getStatus());
+        }
+        sharedContentFiles = query.loadFileMetadataPage(primaryMockFolder.getId(), 0, 10);
+
+        assertEquals(2, sharedContentFiles.size());
+        assertEquals(sharedContentFiles.get(0).blobKey(), sharedContentFiles.get(1).blobKey());
+        assertEquals(2, blobReferenceRepository.findById(sharedContentFiles.get(0).blobKey())
+                .orElseThrow().getRefCount());
+    }
+
+    /**
+     * Step definition for the scenario where the user permanently deletes one of the files sharing content,
+     * after which unreferenced content is reclaimed.
+     *
+     * @param position The position of the file among the files sharing content, either "first" or "second".
+     */
+    @When("the user permanently deletes the {word} of those files")
+    public void theUserPermanentlyDeletesOneOfThoseFiles(String position) {
+        FileMetadata file = sharedContentFiles.get(position.equals("first") ? 0 : 1);
+
+        query.deleteFile(primaryMockFolder, file.name());
+        blobReclaimer.reclaimUnreferencedBlobs();
+
+        assertThrows(CouldNotFindFileException.class, () -> query.loadFileMetadataById(file.id()));
+    }
+
+    /**
+     * Step definition for the scenario where the shared content is kept for the file still referencing it.
+     *
+     * @throws IOException If the content could not be found in the blob store.
+     */
+    @Then("the content should still be stored for the remaining file")
+    public void theContentShouldStillBeStoredForTheRemainingFile() throws IOException {
+        FileMetadata remainingFile = sharedContentFiles.get(1);
+
+        assertEquals(1, blobReferenceRepository.findById(remainingFile.blobKey()).orElseThrow().getRefCount());
+        assertTrue(blobStore.load(remainingFile.blobKey(), remainingFile.codec()).exists());
+    }
+
+    /**
+     * Step definition for the scenario where the shared content is reclaimed once no file references it.
+     */
+    @Then("the content should be reclaimed from the blob store")
+    public void theContentShouldBeReclaimedFromTheBlobStore() {
+        FileMetadata lastFile = sharedContentFiles.get(1);
+
+        assertTrue(blobReferenceRepository.findById(lastFile.blobKey()).isEmpty());
+        assertThrows(IOException.class, () -> blobStore.load(lastFile.blobKey(), lastFile.codec()));
+    }
 }
@@ -0,0 +1,622 @@
+package me.code.dropfolder.cucumberglue;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.User;
+import me.code.dropfolder.security.JwtTokenUtil;
+import me.code.dropfolder.services.FileService;
+import me.code.dropfolder.storage.CompressionPolicy;
+import me.code.dropfolder.storage.ContentCodec;
+import me.code.dropfolder.utils.FileDownloadBuilderUtil;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.MockDataFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cucumber feature test class for file download scenarios.
+ * Defines step definitions using Cucumber annotations to test the validators and content negotiation of downloads.
+ *
+ * <p>
+ * The validators, the negotiated encoding and the transfer paths are checked by building downloads for the metadata
+ * of a file directly, with mock requests, so the file does not have to be stored. Ranges are served by Spring MVC
+ * from the response built for the download, so they are checked by downloading a stored file from the running
+ * server over HTTP.
+ * </p>
+ */
+public class FileDownloadFeatureTest {
+
+    private static final String MOCK_BLOB_KEY = "3fa9c7d1e0b24f6a8c5d9e1f2a3b4c5d6e7f8091a2b3c4d5e6f708192a3b4c5d";
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private final FileService fileService;
+    private final CompressionPolicy compressionPolicy;
+    private final ServerProperties serverProperties;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final JpQueryUtil query;
+    private final MockDataFactory mock;
+    private final HttpClient client;
+    private final URI baseUri;
+
+    private FileMetadata mockFile;
+    private String acceptEncoding;
+    private ContentCodec contentEncoding;
+    private String eTag;
+
+    private User mockUser;
+    private Folder mockFolder;
+    private String token;
+    private byte[] storedContent;
+    private FileMetadata storedFile;
+    private HttpResponse<byte[]> download;
+
+    private Path contentFile;
+    private MockHttpServletRequest servletRequest;
+    private ReadinessLimitedResponse servletResponse;
+    private ResponseEntity<Resource> responseEntity;
+
+    /**
+     * Constructor for the FileDownloadFeatureTest class.
+     *
+     * @param fileService       The file services deciding whether the content of a file is compressible.
+     * @param compressionPolicy The policy deciding which content types are compressed.
+     * @param serverProperties  The properties of the servlet container, which compresses responses in transfer.
+     * @param jwtTokenUtil      The utility generating the token which authenticates the downloads.
+     * @param query             The JpQueryUtil used for querying data.
+     * @param mock              The MockDataFactory used for creating mock data.
+     * @param port              The port on which the server is listening.
+     */
+    public FileDownloadFeatureTest(
+            FileService fileService,
+            CompressionPolicy compressionPolicy,
+            ServerProperties serverProperties,
+            JwtTokenUtil jwtTokenUtil,
+            JpQueryUtil query,
+            MockDataFactory mock,
+            @Value("${local.server.port}") int port) {
+        this.fileService = fileService;
+        this.compressionPolicy = compressionPolicy;
+        this.serverProperties = serverProperties;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.query = query;
+        this.mock = mock;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    /**
+     * Setup method annotated with {@code @Before} to create mock user data before the test scenario.
+     */
+    @Before("@setupDownloadData")
+    public void setUpMockData() {
+        mockUser = mock.createMockUser("DownloadUser", "Mock_password1");
+        mockFolder = mock.createMockFolder(mockUser, "downloads");
+        token = jwtTokenUtil.generateToken(mockUser);
+    }
+
+    /**
+     * Cleanup method annotated with {@code @After} to delete the mock user data and any file kept on disk.
+     * Note: Deleting a user will also delete all of that user's folders and files.
+     *
+     * @throws IOException If the file kept on disk could not be deleted.
+     */
+    @After("@cleanupDownloadData")
+    public void cleanUpMockData() throws IOException {
+        if (mockUser != null) {
+            query.deleteUser(mockUser.getUsername());
+        }
+        if (contentFile != null) {
+            Files.deleteIfExists(contentFile);
+        }
+    }
+
+    /**
+     * Step definition for the scenario where a file of a given content type is stored in a given codec.
+     *
+     * @param contentType The content type of the file.
+     * @param codec       The name of the codec in which the content of the file is stored.
+     */
+    @Given("a file of type {string} stored with codec {string}")
+    public void aFileOfTypeStoredWithCodec(String contentType, String codec) {
+        mockFile = new FileMetadata(1L, "mock_file", contentType, 1000L, MOCK_BLOB_KEY,
+                ContentCodec.valueOf(codec), 400L, Instant.parse("2024-01-01T00:00:00Z"), 1L, 1L);
+    }
+
+    /**
+     * Step definition for the scenario where the file is downloaded by a client accepting the given encodings.
+     *
+     * @param acceptEncoding The Accept-Encoding header of the request.
+     */
+    @When("the file is downloaded with the Accept-Encoding header {string}")
+    public void theFileIsDownloadedWithTheAcceptEncodingHeader(String acceptEncoding) {
+        this.acceptEncoding = acceptEncoding;
+        contentEncoding = FileDownloadBuilderUtil.negotiateContentEncoding(mockFile, createRequest(null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(prepareDownload(null).isNotModified(createRequest(null), response));
+
+        eTag = response.getHeader(HttpHeaders.ETAG);
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * Step definition for the scenario where the download is tagged with the expected ETag.
+     *
+     * @param expectedETag The expected ETag, in which {@code {key}} stands for the key of the content of the file.
+     */
+    @Then("the download should be tagged with the ETag {string}")
+    public void theDownloadShouldBeTaggedWithTheETag(String expectedETag) {
+        assertEquals(expectedETag.replace("{key}", MOCK_BLOB_KEY), eTag);
+    }
+
+    /**
+     * Step definition for the scenario where a conditional request carrying the ETag of the download is answered
+     * without content.
+     */
+    @Then("downloading the file again with that ETag in If-None-Match should be answered with 304 Not Modified")
+    public void downloadingTheFileAgainWithThatETagShouldBeAnsweredWith304() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(prepareDownload(eTag).isNotModified(createRequest(eTag), response));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where a conditional request carrying the ETag of another representation of
+     * the file is answered with the content.
+     *
+     * @param otherETag The ETag of another representation, in which {@code {key}} stands for the key of the content.
+     */
+    @Then("downloading the file again with the ETag {string} in If-None-Match should not be answered with 304 Not Modified")
+    public void downloadingTheFileAgainWithTheETagShouldNotBeAnsweredWith304(String otherETag) {
+        String ifNoneMatch = otherETag.replace("{key}", MOCK_BLOB_KEY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(prepareDownload(ifNoneMatch).isNotModified(createRequest(ifNoneMatch), response));
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where the content is sent in the negotiated encoding.
+     *
+     * @param encoding The name of the codec in which the content should be sent.
+     */
+    @Then("the content should be sent with the encoding {string}")
+    public void theContentShouldBeSentWithTheEncoding(String encoding) {
+        assertEquals(ContentCodec.valueOf(encoding), contentEncoding);
+    }
+
+    /**
+     * Step definition for the scenario where the content is, or is not, left to the servlet container to compress.
+     * Content compressed by the container is tagged weakly, while content sent as it is is tagged strongly.
+     *
+     * @param compressed Whether the servlet container should compress the content.
+     */
+    @Then("the content should be compressed by the servlet container: {word}")
+    public void theContentShouldBeCompressedByTheServletContainer(String compressed) {
+        assertEquals(Boolean.parseBoolean(compressed), eTag.startsWith("W/"));
+    }
+
+    /**
+     * Step definition for the scenario where the servlet container compresses the same content types which are
+     * compressed at rest, so a response is only tagged as compressed by the container when it actually is.
+     */
+    @Then("the servlet container should compress exactly the content types compressed at rest")
+    public void theServletContainerShouldCompressExactlyTheContentTypesCompressedAtRest() {
+        String[] containerTypes = serverProperties.getCompression().getMimeTypes();
+
+        assertTrue(serverProperties.getCompression().getEnabled());
+        for (String containerType : containerTypes) {
+            assertTrue(compressionPolicy.isCompressible(containerType));
+        }
+        assertFalse(compressionPolicy.isCompressible("text/x-log"));
+        assertTrue(List.of(containerTypes).contains("text/plain"));
+    }
+
+    /**
+     * Step definition for the scenario where a compressible content type containing a wildcard is rejected,
+     * since the servlet container would not compress the types it stands for.
+     */
+    @Then("a compressible content type containing a wildcard should be rejected")
+    public void aCompressibleContentTypeContainingAWildcardShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy(true, List.of("text/*")));
+        assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy(true, List.of("application/*+json")));
+    }
+
+    /**
+     * Step definition for the scenario where the user has stored a file of random content in their folder.
+     * Its content type is not compressible, so it is stored and sent as it is.
+     *
+     * @param size The size of the file in bytes.
+     */
+    @Given("the user has stored a file of {int} bytes")
+    public void theUserHasStoredAFileOfBytes(int size) {
+        storedContent = new byte[size];
+        new Random().nextBytes(storedContent);
+
+        fileService.upload(mockUser.getId(), mockFolder.getId(), "stored.bin",
+                MediaType.APPLICATION_OCTET_STREAM_VALUE, new ByteArrayInputStream(storedContent));
+        storedFile = query.loadFileMetadataById(query.loadFileByFolderAndName(mockFolder, "stored.bin").getId());
+    }
+
+    /**
+     * Step definition for the scenario where the whole stored file is downloaded from the server.
+     *
+     * @throws IOException          If the request could not be sent.
+     * @throws InterruptedException If the step is interrupted while waiting for the response.
+     */
+    @When("the stored file is downloaded")
+    public void theStoredFileIsDownloaded() throws IOException, InterruptedException {
+        download = downloadStoredFile(HttpRequest.newBuilder());
+    }
+
+    /**
+     * Step definition for the scenario where ranges of the stored file are downloaded from the server.
+     *
+     * @param range The Range header of the request.
+     * @throws IOException          If the request could not be sent.
+     * @throws InterruptedException If the step is interrupted while waiting for the response.
+     */
+    @When("the stored file is downloaded with the Range header {string}")
+    public void theStoredFileIsDownloadedWithTheRangeHeader(String range) throws IOException, InterruptedException {
+        download = downloadStoredFile(HttpRequest.newBuilder().header(HttpHeaders.RANGE, range));
+    }
+
+    /**
+     * Step definition for the scenario where ranges of the stored file are downloaded from the server, on the
+     * condition that the file has not changed.
+     *
+     * @param range   The Range header of the request.
+     * @param ifRange The If-Range header of the request, in which {@code {etag}} stands for the ETag of the file,
+     *                {@code {last_modified}} for the time it was last modified, and {@code {earlier}} for a time
+     *                before that.
+     * @throws IOException          If the request could not be sent.
+     * @throws InterruptedException If the step is interrupted while waiting for the response.
+     */
+    @When("the stored file is downloaded with the Range header {string} and the If-Range header {string}")
+    public void theStoredFileIsDownloadedWithTheRangeHeaderAndTheIfRangeHeader(String range, String ifRange)
+            throws IOException, InterruptedException {
+        HttpHeaders validators = new HttpHeaders();
+        validators.setLastModified(storedFile.uploadedAt());
+        HttpHeaders earlier = new HttpHeaders();
+        earlier.setLastModified(storedFile.uploadedAt().minusSeconds(3600));
+
+        String condition = ifRange.replace("{etag}", "\"" + storedFile.blobKey() + "\"")
+                .replace("{last_modified}", validators.getFirst(HttpHeaders.LAST_MODIFIED))
+                .replace("{earlier}", earlier.getFirst(HttpHeaders.LAST_MODIFIED));
+        download = downloadStoredFile(HttpRequest.newBuilder()
+                .header(HttpHeaders.RANGE, range)
+                .header(HttpHeaders.IF_RANGE, condition));
+    }
+
+    /**
+     * Step definition for the scenario where the whole file should be sent.
+     */
+    @Then("the response should be 200 OK with the whole file")
+    public void theResponseShouldBe200OkWithTheWholeFile() {
+        assertEquals(HttpStatus.OK.value(), download.statusCode());
+        assertEquals(String.valueOf(storedContent.length),
+                download.headers().firstValue(HttpHeaders.CONTENT_LENGTH).orElseThrow());
+        assertTrue(download.headers().firstValue(HttpHeaders.CONTENT_RANGE).isEmpty());
+        assertArrayEquals(storedContent, download.body());
+    }
+
+    /**
+     * Step definition for the scenario where a single range of the file should be sent.
+     *
+     * @param contentRange The expected Content-Range header of the response.
+     * @param first        The position of the first byte of the range.
+     * @param last         The position of the last byte of the range.
+     */
+    @Then("the response should be 206 Partial Content with the Content-Range {string} holding bytes {int} to {int} of the file")
+    public void theResponseShouldBe206PartialContentWithTheContentRange(String contentRange, int first, int last) {
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), download.statusCode());
+        assertEquals(contentRange, download.headers().firstValue(HttpHeaders.CONTENT_RANGE).orElseThrow());
+        assertEquals(String.valueOf(last - first + 1),
+                download.headers().firstValue(HttpHeaders.CONTENT_LENGTH).orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(storedContent, first, last + 1), download.body());
+    }
+
+    /**
+     * Step definition for the scenario where several ranges of the file should be sent as the parts of a
+     * {@code multipart/byteranges} body, in the order in which they were requested.
+     *
+     * @param ranges The comma-separated ranges expected in the parts, each as {@code first-last}.
+     */
+    @Then("the response should be 206 Partial Content with a part holding each of the ranges {string} of the file")
+    public void theResponseShouldBe206PartialContentWithAPartHoldingEachOfTheRanges(String ranges) {
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), download.statusCode());
+        MediaType contentType = MediaType.parseMediaType(
+                download.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        assertEquals("multipart/byteranges", contentType.getType() + "/" + contentType.getSubtype());
+
+        // Every byte is decoded to a single character, so positions in the body are kept
+        String body = new String(download.body(), StandardCharsets.ISO_8859_1);
+        String delimiter = "--" + contentType.getParameter("boundary");
+        int position = 0;
+
+        for (String range : ranges.split(",")) {
+            int first = Integer.parseInt(range.split("-")[0]);
+            int last = Integer.parseInt(range.split("-")[1]);
+
+            position = body.indexOf(delimiter, position);
+            assertNotEquals(-1, position);
+            int contentStart = body.indexOf("\r\n\r\n", position) + 4;
+            String partHeaders = body.substring(position, contentStart);
+            assertTrue(partHeaders.contains("Content-Range: bytes " + first + "-" + last + "/" + storedContent.length),
+                    partHeaders);
+
+            byte[] partContent = body.substring(contentStart, contentStart + last - first + 1)
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            assertArrayEquals(Arrays.copyOfRange(storedContent, first, last + 1), partContent);
+            position = contentStart + partContent.length;
+        }
+        assertTrue(body.startsWith("\r\n" + delimiter + "--", position));
+    }
+
+    /**
+     * Step definition for the scenario where no range of the file can be sent.
+     *
+     * @param contentRange The expected Content-Range header of the response, stating the size of the file.
+     */
+    @Then("the response should be 416 Range Not Satisfiable with the Content-Range {string}")
+    public void theResponseShouldBe416RangeNotSatisfiableWithTheContentRange(String contentRange) {
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), download.statusCode());
+        assertEquals(contentRange, download.headers().firstValue(HttpHeaders.CONTENT_RANGE).orElseThrow());
+    }
+
+    /**
+     * Step definition for the scenario where the content of a file is kept on disk, as it is in the blob store.
+     * Its content type is not compressible, so it is sent as it is.
+     *
+     * @param size The size of the file in bytes.
+     * @throws IOException If the content could not be written to disk.
+     */
+    @Given("a file of {int} bytes whose content is kept on disk")
+    public void aFileOfBytesWhoseContentIsKeptOnDisk(int size) throws IOException {
+        storedContent = new byte[size];
+        new Random().nextBytes(storedContent);
+        contentFile = Files.write(Files.createTempFile("download-", ".bin"), storedContent);
+
+        mockFile = new FileMetadata(1L, "mock_file", MediaType.APPLICATION_OCTET_STREAM_VALUE, size, MOCK_BLOB_KEY,
+                ContentCodec.IDENTITY, (long) size, Instant.parse("2024-01-01T00:00:00Z"), 1L, 1L);
+    }
+
+    /**
+     * Step definition for the scenario where the file is downloaded from a servlet container supporting sendfile.
+     *
+     * @throws IOException If the content of the file could not be resolved.
+     */
+    @When("the file is downloaded from a servlet container supporting sendfile")
+    public void theFileIsDownloadedFromAServletContainerSupportingSendfile() throws IOException {
+        servletResponse = new ReadinessLimitedResponse();
+        servletRequest = new MockHttpServletRequest("GET", "/file/download");
+        servletRequest.setAttribute(SENDFILE_SUPPORT_ATTRIBUTE, true);
+        servletRequest.setAsyncSupported(true);
+
+        responseEntity = buildDownload();
+    }
+
+    /**
+     * Step definition for the scenario where the file is downloaded from a servlet container without sendfile
+     * support, such as over TLS, with a client which accepts a single buffer of content before it stalls.
+     *
+     * @throws IOException If the content of the file could not be resolved.
+     */
+    @When("the file is downloaded from a servlet container without sendfile support")
+    public void theFileIsDownloadedFromAServletContainerWithoutSendfileSupport() throws IOException {
+        servletResponse = new ReadinessLimitedResponse();
+        servletRequest = new MockHttpServletRequest("GET", "/file/download") {
+            @Override
+            public AsyncContext startAsync() {
+                return startAsync(this, servletResponse);
+            }
+        };
+        servletRequest.setAsyncSupported(true);
+
+        responseEntity = buildDownload();
+    }
+
+    /**
+     * Step definition for the scenario where the whole file is handed over to the servlet container, which sends
+     * it with sendfile once the response is committed.
+     */
+    @Then("the whole file should be handed over to sendfile")
+    public void theWholeFileShouldBeHandedOverToSendfile() {
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+        assertEquals(storedContent.length, responseEntity.getHeaders().getContentLength());
+
+        assertEquals(contentFile.toFile().getAbsolutePath(), servletRequest.getAttribute(SENDFILE_FILENAME_ATTRIBUTE));
+        assertEquals(0L, servletRequest.getAttribute(SENDFILE_START_ATTRIBUTE));
+        assertEquals((long) storedContent.length, servletRequest.getAttribute(SENDFILE_END_ATTRIBUTE));
+        assertFalse(servletRequest.isAsyncStarted());
+    }
+
+    /**
+     * Step definition for the scenario where the content is only written while the client accepts it, leaving the
+     * transfer suspended without holding a thread once the client stalls.
+     *
+     * @throws IOException If the content could not be written.
+     */
+    @Then("the file should only be sent while the client is ready to accept it")
+    public void theFileShouldOnlyBeSentWhileTheClientIsReadyToAcceptIt() throws IOException {
+        assertNull(responseEntity);
+        assertEquals(HttpStatus.OK.value(), servletResponse.getStatus());
+        assertEquals(storedContent.length, servletResponse.getContentLengthLong());
+        assertTrue(servletRequest.isAsyncStarted());
+
+        servletResponse.acceptWrites(1);
+
+        assertTrue(servletResponse.getSentContent().length > 0);
+        assertTrue(servletResponse.getSentContent().length < storedContent.length);
+        assertTrue(servletRequest.isAsyncStarted());
+    }
+
+    /**
+     * Step definition for the scenario where the client accepts the rest of the content, after which the whole
+     * file should have been sent and the request completed.
+     *
+     * @throws IOException If the content could not be written.
+     */
+    @Then("the whole file should have been sent once the client has accepted it")
+    public void theWholeFileShouldHaveBeenSentOnceTheClientHasAcceptedIt() throws IOException {
+        servletResponse.acceptWrites(Integer.MAX_VALUE);
+
+        assertArrayEquals(storedContent, servletResponse.getSentContent());
+        assertFalse(servletRequest.isAsyncStarted());
+    }
+
+    /**
+     * Prepares the download of the file the way the download endpoint does, negotiating its encoding.
+     *
+     * @param ifNoneMatch The If-None-Match header of the request, or {@code null} for an unconditional request.
+     * @return The builder of the download.
+     */
+    private FileDownloadBuilderUtil prepareDownload(String ifNoneMatch) {
+        ContentCodec contentEncoding = FileDownloadBuilderUtil.negotiateContentEncoding(
+                mockFile, createRequest(ifNoneMatch));
+        return new FileDownloadBuilderUtil(mockFile, contentEncoding, fileService.isCompressible(mockFile));
+    }
+
+    /**
+     * Creates a request for downloading the file, accepting the encodings of the scenario.
+     *
+     * @param ifNoneMatch The If-None-Match header of the request, or {@code null} for an unconditional request.
+     * @return The mock request.
+     */
+    private MockHttpServletRequest createRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/download");
+        if (!acceptEncoding.isEmpty()) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+
+    /**
+     * Downloads the stored file from the running server.
+     *
+     * @param request The request, carrying any headers of the scenario.
+     * @return The response, with the body as it was received.
+     * @throws IOException          If the request could not be sent.
+     * @throws InterruptedException If the step is interrupted while waiting for the response.
+     */
+    private HttpResponse<byte[]> downloadStoredFile(HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        URI uri = baseUri.resolve("/api/file/download?folderId=" + mockFolder.getId() + "&fileId=" + storedFile.id());
+        return client.send(request.uri(uri).header("Authorization", token).timeout(DOWNLOAD_TIMEOUT).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Builds the download of the file kept on disk the way the download endpoint does, for the servlet request and
+     * response of the scenario.
+     *
+     * @return The response built for the download, or {@code null} if the content is sent without blocking.
+     * @throws IOException If the content of the file could not be resolved.
+     */
+    private ResponseEntity<Resource> buildDownload() throws IOException {
+        ContentCodec contentEncoding = FileDownloadBuilderUtil.negotiateContentEncoding(mockFile, servletRequest);
+        FileDownloadBuilderUtil builder = new FileDownloadBuilderUtil(
+                mockFile, contentEncoding, fileService.isCompressible(mockFile));
+
+        return builder.buildResponseEntity(new FileSystemResource(contentFile), servletRequest, servletResponse);
+    }
+
+    /**
+     * Mock response standing in for a client which only accepts a given number of writes at a time, after which
+     * the output reports that it is not ready until more writes are accepted.
+     */
+    private static class ReadinessLimitedResponse extends MockHttpServletResponse {
+
+        private final ByteArrayOutputStream sentContent = new ByteArrayOutputStream();
+        private WriteListener writeListener;
+        private int acceptedWrites;
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return acceptedWrites > 0;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                writeListener = listener;
+            }
+
+            @Override
+            public void write(int value) {
+                write(new byte[]{(byte) value}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) {
+                acceptedWrites--;
+                sentContent.write(buffer, offset, length);
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        /**
+         * Accepts the given number of further writes and signals that writing is possible, as the container does
+         * once the client is ready.
+         *
+         * @param writes The number of writes accepted.
+         * @throws IOException If the content could not be written.
+         */
+        private void acceptWrites(int writes) throws IOException {
+            acceptedWrites = writes;
+            writeListener.onWritePossible();
+        }
+
+        private byte[] getSentContent() {
+            return sentContent.toByteArray();
+        }
+    }
+}
@@ -6,18 +6,40 @@ import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.BatchUploadSuccessDetail;
 import me.code.dropfolder.exceptions.types.CouldNotFindFolderException;
 import me.code.dropfolder.exceptions.types.FileUploadFailureException;
 import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.FileMetadata;
 import me.code.dropfolder.models.Folder;
 import me.code.dropfolder.models.User;
+import me.code.dropfolder.services.FileAccessValidator;
 import me.code.dropfolder.services.FileService;
+import me.code.dropfolder.storage.ContentCodec;
 import me.code.dropfolder.utils.JpQueryUtil;
 import me.code.dropfolder.utils.MockDataFactory;
+import me.code.dropfolder.utils.UniqueNameGeneratorUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -32,29 +54,44 @@ import static org.junit.jupiter.api.Assertions.*;
 public class FileUploadFeatureTest {
 
     private final FileService fileService;
+    private final FileAccessValidator accessValidator;
+    private final UniqueNameGeneratorUtil nameGenerator;
     private final JpQueryUtil query;
     private final MockDataFactory mock;
-
+    private final long maxFileSize;
 
     private User primaryMockUser;
     private Folder primaryMockUsersFolder;
     private User secondaryMockUser;
     private MultipartFile attachedMockFile;
+    private BatchUploadSuccessDetail batchUploadResult;
+    private File trashedMockFile;
+    private Supplier<String> conflictingSaveOperation;
+    private AtomicInteger saveAttempts;
 
     /**
      * Constructor for the FileUploadFeatureTest class.
      *
-     * @param fileService The file services used for file-related operations.
-     * @param query       The JpQueryUtil used for querying data.
-     * @param mock        The MockDataFactory used for creating mock data.
+     * @param fileService     The file services used for file-related operations.
+     * @param accessValidator The validator checking the user's permission to access files and folders.
+     * @param nameGenerator   The generator of unique names for files and folders.
+     * @param query           The JpQueryUtil used for querying data.
+     * @param mock            The MockDataFactory used for creating mock data.
+     * @param maxFileSize     The maximum size of an uploaded file.
      */
     public FileUploadFeatureTest(
             FileService fileService,
+            FileAccessValidator accessValidator,
+            UniqueNameGeneratorUtil nameGenerator,
             JpQueryUtil query,
-            MockDataFactory mock) {
+            MockDataFactory mock,
+            @Value("${dropfolder.upload.max-file-size}") DataSize maxFileSize) {
         this.fileService = fileService;
+        this.accessValidator = accessValidator;
+        this.nameGenerator = nameGenerator;
         this.query = query;
         this.mock = mock;
+        this.maxFileSize = maxFileSize.toBytes();
     }
 
     /**
@@ -68,7 +105,7 @@ public class FileUploadFeatureTest {
 
     /**
      * Cleanup method annotated with {@code @After} to delete the mock user data after the test scenario.
-     * Note: Due to entity relationship settings, deleting a user will also delete all of that user's folders and files.
+     * Note: Deleting a user will also delete all of that user's folders and files.
      */
     @After("@cleanupUploadData")
     public void cleanUpMockData() {
@@ -106,6 +143,135 @@ public class FileUploadFeatureTest {
         assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
     }
 
+    /**
+     * Step definition for the scenario where the user uploads the raw content of a file into their folder,
+     * describing the file with request headers.
+     *
+     * @param fileName The name of the file to be uploaded.
+     * @throws IOException If the content of the mock file could not be read.
+     */
+    @When("the user uploads the raw content of a file with name {string} into their folder")
+    public void theUserUploadsTheRawContentOfAFileWithNameIntoTheirFolder(String fileName) throws IOException {
+        attachedMockFile = mock.generateMockFile(fileName);
+        uploadRawContent(fileName, attachedMockFile.getContentType());
+    }
+
+    /**
+     * Step definition for the scenario where the user uploads the raw content of a file with a given content type
+     * into their folder.
+     *
+     * @param fileName    The name of the file to be uploaded.
+     * @param contentType The content type of the file to be uploaded.
+     * @throws IOException If the content of the mock file could not be read.
+     */
+    @When("the user uploads the raw content of a file with name {string} and content type {string} into their folder")
+    public void theUserUploadsTheRawContentOfAFileWithNameAndContentTypeIntoTheirFolder(
+            String fileName, String contentType) throws IOException {
+        attachedMockFile = mock.generateMockFile(fileName);
+        uploadRawContent(fileName, contentType);
+    }
+
+    /**
+     * Uploads the content of the attached mock file as a raw body into the user's folder.
+     *
+     * @param fileName    The name of the file to be uploaded.
+     * @param contentType The content type of the file to be uploaded.
+     * @throws IOException If the content of the mock file could not be read.
+     */
+    private void uploadRawContent(String fileName, String contentType) throws IOException {
+        long userId = primaryMockUser.getId();
+        long folderId = primaryMockUsersFolder.getId();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        headers.setContentType(MediaType.parseMediaType(contentType));
+
+        try (InputStream content = attachedMockFile.getInputStream()) {
+            ResponseEntity<SuccessDto> responseEntity =
+                    fileService.upload(userId, folderId, headers, content).toResponseEntity();
+
+            assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the raw content of a file larger than the maximum file size is uploaded,
+     * either declaring its length up front or not, as with a chunked request body.
+     *
+     * @param length Either {@code declared} or {@code undeclared}.
+     */
+    @Then("a raw upload exceeding the maximum file size with a {word} length should fail")
+    public void aRawUploadExceedingTheMaximumFileSizeWithALengthShouldFail(String length) {
+        byte[] content = new byte[Math.toIntExact(maxFileSize + 1)];
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename("too_large.bin").build());
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (length.equals("declared")) {
+            headers.setContentLength(content.length);
+        }
+
+        assertThrows(FileUploadFailureException.class, () -> fileService.upload(
+                primaryMockUser.getId(), primaryMockUsersFolder.getId(), headers, new ByteArrayInputStream(content)));
+        assertFalse(query.folderHasExistingFileByName(primaryMockUsersFolder, "too_large.bin"));
+    }
+
+    /**
+     * Step definition for the scenario where the uploaded file is stored in the expected codec,
+     * and its content is downloaded exactly as it was uploaded.
+     *
+     * @param codec The name of the codec in which the file is expected to be stored.
+     * @throws IOException If the content of the file could not be read.
+     */
+    @Then("the file should be stored with codec {string} and be downloaded unchanged")
+    public void theFileShouldBeStoredWithCodecAndBeDownloadedUnchanged(String codec) throws IOException {
+        File uploadedFile = query.loadFileByFolderAndName(primaryMockUsersFolder, attachedMockFile.getOriginalFilename());
+        assertEquals(ContentCodec.valueOf(codec), uploadedFile.getCodec());
+
+        FileMetadata metadata = fileService.fetchFileForDownload(
+                primaryMockUser.getId(), primaryMockUsersFolder.getId(), uploadedFile.getId());
+        try (InputStream content = fileService.loadFileContent(metadata).getInputStream()) {
+            assertArrayEquals(attachedMockFile.getBytes(), content.readAllBytes());
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the user uploads several files into their folder in one batch.
+     *
+     * @param fileNames The comma-separated names of the files to be uploaded.
+     */
+    @When("the user uploads the files named {string} into their folder in one batch")
+    public void theUserUploadsTheFilesNamedIntoTheirFolderInOneBatch(String fileNames) {
+        long userId = primaryMockUser.getId();
+        long folderId = primaryMockUsersFolder.getId();
+        List<MultipartFile> attachedMockFiles = Arrays.stream(fileNames.split(","))
+                .map(mock::generateMockFile)
+                .toList();
+
+        SuccessDto result = fileService.uploadBatch(userId, folderId, attachedMockFiles);
+        batchUploadResult = (BatchUploadSuccessDetail) result.getSuccessDetails();
+
+        assertEquals(HttpStatus.CREATED, result.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where every file of the batch should be in the user's folder, in order.
+     *
+     * @param savedNames The comma-separated names under which the files should have been saved.
+     */
+    @Then("every file should be uploaded successfully under the names {string}")
+    public void everyFileShouldBeUploadedSuccessfullyUnderTheNames(String savedNames) {
+        List<String> expectedNames = List.of(savedNames.split(","));
+
+        assertEquals(expectedNames.size(), batchUploadResult.getUploadedCount());
+        assertEquals(expectedNames, batchUploadResult.getFiles().stream()
+                .map(BatchUploadSuccessDetail.FileResult::fileName)
+                .toList());
+
+        for (BatchUploadSuccessDetail.FileResult file : batchUploadResult.getFiles()) {
+            assertEquals(primaryMockUsersFolder.getId(), query.loadFileMetadataById(file.fileId()).folderId());
+        }
+    }
+
     /**
      * Step definition for the scenario where the uploaded file should be in the user's folder.
      */
@@ -114,11 +280,136 @@ public class FileUploadFeatureTest {
         String mockFileName = attachedMockFile.getOriginalFilename();
         File mockFile = query.loadFileByFolderAndName(primaryMockUsersFolder, mockFileName);
 
-        boolean isSuccessfulUpload =
-                query.isUserOwnerOfTargetFolder(primaryMockUser, primaryMockUsersFolder.getId()) &&
-                        query.isFilePartOfTargetFolder(mockFile.getId(), primaryMockUsersFolder);
+        assertDoesNotThrow(() -> accessValidator.validateFileAccess(
+                primaryMockUser.getId(), primaryMockUsersFolder.getId(), mockFile.getId()));
+    }
+
+    /**
+     * Step definition for the scenario where the user's folder already contains files with the given names.
+     *
+     * @param fileNames The comma-separated names of the files in the folder.
+     */
+    @Given("the folder already contains files named {string}")
+    public void theFolderAlreadyContainsFilesNamed(String fileNames) {
+        for (String fileName : fileNames.split(",")) {
+            uploadMockFileNamed(fileName);
+
+            assertTrue(query.folderHasExistingFileByName(primaryMockUsersFolder, fileName));
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the user has moved one of the files in their folder to the trash.
+     *
+     * @param fileName The name of the file moved to the trash.
+     */
+    @Given("the user has moved the file named {string} to the trash")
+    public void theUserHasMovedTheFileNamedToTheTrash(String fileName) {
+        trashedMockFile = query.loadFileByFolderAndName(primaryMockUsersFolder, fileName);
+
+        SuccessDto result = fileService.delete(
+                primaryMockUser.getId(), primaryMockUsersFolder.getId(), trashedMockFile.getId());
+
+        assertEquals(HttpStatus.OK, result.getStatus());
+        // The trashed file keeps its name reserved
+        assertTrue(query.folderHasExistingFileByName(primaryMockUsersFolder, fileName));
+    }
 
-        assertTrue(isSuccessfulUpload);
+    /**
+     * Step definition for the scenario where the user uploads a file with the given name into their folder.
+     *
+     * @param fileName The name of the file to be uploaded.
+     */
+    @When("the user uploads a file named {string} into their folder")
+    public void theUserUploadsAFileNamedIntoTheirFolder(String fileName) {
+        uploadMockFileNamed(fileName);
+    }
+
+    /**
+     * Uploads mock content into the user's folder under the given file name.
+     *
+     * @param fileName The name of the file to be uploaded.
+     */
+    private void uploadMockFileNamed(String fileName) {
+        MultipartFile content = mock.generateMockFile("mock.txt");
+        try {
+            attachedMockFile = new MockMultipartFile(fileName, fileName, content.getContentType(), content.getBytes());
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        SuccessDto result = fileService.upload(primaryMockUser.getId(), primaryMockUsersFolder.getId(), attachedMockFile);
+
+        assertEquals(HttpStatus.CREATED, result.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where the uploaded file should have been saved under the given name.
+     *
+     * @param savedName The name under which the file should have been saved.
+     */
+    @Then("the file should be saved under the name {string}")
+    public void theFileShouldBeSavedUnderTheName(String savedName) {
+        File savedFile = query.loadFileByFolderAndName(primaryMockUsersFolder, savedName);
+
+        assertNull(savedFile.getDeletedAt());
+        assertEquals(attachedMockFile.getSize(), savedFile.getSize());
+    }
+
+    /**
+     * Step definition for the scenario where the trashed file is restored under its original name,
+     * alongside the file uploaded while it was in the trash.
+     *
+     * @param fileName The name under which the file should be restored.
+     */
+    @Then("the trashed file should be restored under the name {string}")
+    public void theTrashedFileShouldBeRestoredUnderTheName(String fileName) {
+        long fileId = trashedMockFile.getId();
+
+        SuccessDto result = fileService.restore(primaryMockUser.getId(), primaryMockUsersFolder.getId(), fileId);
+
+        assertEquals(HttpStatus.OK, result.getStatus());
+        assertEquals(fileName, query.loadFileMetadataById(fileId).name());
+        assertNotEquals(fileId, query.loadFileByFolderAndName(primaryMockUsersFolder,
+                attachedMockFile.getOriginalFilename()).getId());
+    }
+
+    /**
+     * Step definition for the scenario where a save operation violates a constraint a number of times before it
+     * succeeds, as it does when the generated name is taken concurrently.
+     *
+     * @param constraintName The name of the violated constraint.
+     * @param conflicts      The number of attempts which violate the constraint.
+     */
+    @Given("a save which violates the constraint {string} the first {int} times")
+    public void aSaveWhichViolatesTheConstraintTheFirstTimes(String constraintName, int conflicts) {
+        saveAttempts = new AtomicInteger();
+        conflictingSaveOperation = () -> {
+            int attempt = saveAttempts.incrementAndGet();
+            if (attempt <= conflicts) {
+                throw new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("duplicate key value", new SQLException(), constraintName));
+            }
+            return "saved on attempt " + attempt;
+        };
+    }
+
+    /**
+     * Step definition for the scenario where saving under a unique name succeeds or fails after the given
+     * number of attempts.
+     *
+     * @param outcome  Either {@code succeed} or {@code fail}.
+     * @param attempts The number of attempts expected to be made.
+     */
+    @Then("the save should {word} after {int} attempts")
+    public void theSaveShouldAfterAttempts(String outcome, int attempts) {
+        if (outcome.equals("succeed")) {
+            assertEquals("saved on attempt " + attempts, nameGenerator.saveWithUniqueName(conflictingSaveOperation));
+        } else {
+            assertThrows(DataIntegrityViolationException.class,
+                    () -> nameGenerator.saveWithUniqueName(conflictingSaveOperation));
+        }
+        assertEquals(attempts, saveAttempts.get());
     }
 
     /**
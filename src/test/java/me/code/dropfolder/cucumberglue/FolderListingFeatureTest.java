@@ -0,0 +1,212 @@
+package me.code.dropfolder.cucumberglue;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.FolderContentSuccessDetail;
+import me.code.dropfolder.exceptions.types.CouldNotFindFolderException;
+import me.code.dropfolder.exceptions.types.FolderArchiveFailureException;
+import me.code.dropfolder.exceptions.types.FolderListingFailureException;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.User;
+import me.code.dropfolder.services.FolderService;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.MockDataFactory;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cucumber feature test class for folder listing scenarios.
+ * Defines step definitions using Cucumber annotations to test paging through, archiving and deleting the files of
+ * a folder with mock data.
+ *
+ * <p>
+ * The class sets up and cleans up mock user data before and after test scenarios and defines step definitions
+ * for successful and unsuccessful folder listing scenarios.
+ * </p>
+ */
+public class FolderListingFeatureTest {
+
+    private static final List<String> MOCK_FILE_NAMES = List.of("mock.txt", "mock.docx", "mock.pdf", "mock.jpg", "mock.png");
+
+    private final FolderService folderService;
+    private final JpQueryUtil query;
+    private final MockDataFactory mock;
+
+    private User primaryMockUser;
+    private User secondaryMockUser;
+    private Folder mockFolder;
+    private List<String> listedFileNames;
+    private int pageCount;
+    private byte[] archive;
+
+    /**
+     * Constructor for the FolderListingFeatureTest class.
+     *
+     * @param folderService The folder services used for listing folders.
+     * @param query         The JpQueryUtil used for querying data.
+     * @param mock          The MockDataFactory used for creating mock data.
+     */
+    public FolderListingFeatureTest(
+            FolderService folderService,
+            JpQueryUtil query,
+            MockDataFactory mock) {
+        this.folderService = folderService;
+        this.query = query;
+        this.mock = mock;
+    }
+
+    /**
+     * Setup method annotated with {@code @Before} to create mock data before the test scenario.
+     */
+    @Before("@setupListingData")
+    public void setupMockData() {
+        primaryMockUser = mock.createMockUser("mockLister", "Mockpassword");
+        secondaryMockUser = mock.createMockUser("mockOtherLister", "Mockpassword");
+    }
+
+    /**
+     * Cleanup method annotated with {@code @After} to delete the mock data after the test scenario.
+     */
+    @After("@cleanupListingData")
+    public void cleanupMockData() {
+        query.deleteUser(primaryMockUser.getUsername());
+        query.deleteUser(secondaryMockUser.getUsername());
+    }
+
+    /**
+     * Step definition for the scenario where the user owns a folder containing each of the mock files.
+     */
+    @Given("the user owns a folder containing the mock files")
+    public void theUserOwnsAFolderContainingTheMockFiles() {
+        mockFolder = mock.createMockFolder(primaryMockUser, "mock_folder");
+
+        for (String fileName : MOCK_FILE_NAMES) {
+            mock.createMockFile(primaryMockUser.getId(), mockFolder.getId(), fileName);
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the user pages through the folder, following the cursors.
+     *
+     * @param limit The page size used for listing the folder.
+     */
+    @When("the user lists the folder with a page size of {int}")
+    public void theUserListsTheFolderWithAPageSizeOf(int limit) {
+        listedFileNames = new ArrayList<>();
+        pageCount = 0;
+        Long cursor = null;
+
+        do {
+            SuccessDto result = folderService.listFiles(primaryMockUser.getId(), mockFolder.getId(), cursor, limit);
+            FolderContentSuccessDetail page = (FolderContentSuccessDetail) result.getSuccessDetails();
+
+            assertEquals(HttpStatus.OK, result.getStatus());
+            assertTrue(page.getFiles().size() <= limit);
+            page.getFiles().forEach(file -> listedFileNames.add(file.fileName()));
+            cursor = page.getNextCursor();
+            pageCount++;
+        } while (cursor != null);
+    }
+
+    /**
+     * Step definition for the scenario where every file has been listed once over the expected number of pages.
+     *
+     * @param pages The expected number of pages.
+     */
+    @Then("every file should be listed exactly once in {int} pages")
+    public void everyFileShouldBeListedExactlyOnceInPages(int pages) {
+        assertEquals(pages, pageCount);
+        assertEquals(MOCK_FILE_NAMES, listedFileNames);
+    }
+
+    /**
+     * Step definition for the scenario where a user lists a folder they do not own.
+     */
+    @Then("listing the folder should fail for another user")
+    public void listingTheFolderShouldFailForAnotherUser() {
+        assertThrows(FolderListingFailureException.class,
+                () -> folderService.listFiles(secondaryMockUser.getId(), mockFolder.getId(), null, null));
+    }
+
+    /**
+     * Step definition for the scenario where the user downloads the folder as a ZIP archive.
+     *
+     * @throws IOException If the archive could not be written.
+     */
+    @When("the user downloads the folder as an archive")
+    public void theUserDownloadsTheFolderAsAnArchive() throws IOException {
+        folderService.fetchFolderForArchive(primaryMockUser.getId(), mockFolder.getId());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        folderService.writeArchive(mockFolder.getId(), output);
+        archive = output.toByteArray();
+    }
+
+    /**
+     * Step definition for the scenario where the archive holds one entry per file, with the content of that file.
+     *
+     * @throws IOException If the archive could not be read.
+     */
+    @Then("the archive should contain every file exactly once")
+    public void theArchiveShouldContainEveryFileExactlyOnce() throws IOException {
+        List<String> archivedFileNames = new ArrayList<>();
+        Map<String, Long> fileSizes = query.loadFileMetadataPage(mockFolder.getId(), 0, MOCK_FILE_NAMES.size()).stream()
+                .collect(Collectors.toMap(FileMetadata::name, FileMetadata::size));
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                byte[] content = zip.readAllBytes();
+
+                assertEquals(fileSizes.get(entry.getName()).longValue(), content.length);
+                archivedFileNames.add(entry.getName());
+            }
+        }
+
+        assertEquals(MOCK_FILE_NAMES, archivedFileNames);
+    }
+
+    /**
+     * Step definition for the scenario where a user archives a folder they do not own.
+     */
+    @Then("archiving the folder should fail for another user")
+    public void archivingTheFolderShouldFailForAnotherUser() {
+        assertThrows(FolderArchiveFailureException.class,
+                () -> folderService.fetchFolderForArchive(secondaryMockUser.getId(), mockFolder.getId()));
+    }
+
+    /**
+     * Step definition for the scenario where the user deletes the folder along with its files.
+     */
+    @When("the user deletes the folder")
+    public void theUserDeletesTheFolder() {
+        SuccessDto result = folderService.deleteFolder(primaryMockUser.getId(), mockFolder.getId());
+
+        assertEquals(HttpStatus.OK, result.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where neither the deleted folder nor any of its files can be found.
+     */
+    @Then("the folder and its files should no longer exist")
+    public void theFolderAndItsFilesShouldNoLongerExist() {
+        assertTrue(query.loadFileMetadataPage(mockFolder.getId(), 0, MOCK_FILE_NAMES.size()).isEmpty());
+        assertThrows(CouldNotFindFolderException.class, () -> query.loadFolderById(mockFolder.getId()));
+    }
+}
@@ -0,0 +1,160 @@
+package me.code.dropfolder.cucumberglue;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import me.code.dropfolder.models.FileMetadata;
+import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.User;
+import me.code.dropfolder.repositories.BlobReferenceRepository;
+import me.code.dropfolder.services.FileService;
+import me.code.dropfolder.services.LegacyContentMigration;
+import me.code.dropfolder.storage.ContentCodec;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.MockDataFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cucumber feature test class for the migration of content kept in the database.
+ * Defines step definitions using Cucumber annotations to test that the content of legacy files is moved into the
+ * blob store.
+ *
+ * <p>
+ * A legacy file is inserted with its content in the {@code data} column, which the migration reads, moves into the
+ * blob store and then drops, as it would on the first start after an upgrade.
+ * </p>
+ */
+public class LegacyContentMigrationFeatureTest {
+
+    private final LegacyContentMigration migration;
+    private final FileService fileService;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JpQueryUtil query;
+    private final MockDataFactory mock;
+
+    private User mockUser;
+    private Folder mockFolder;
+    private long legacyFileId;
+    private byte[] legacyContent;
+
+    /**
+     * Constructor for the LegacyContentMigrationFeatureTest class.
+     *
+     * @param migration               The migration moving the content of files into the blob store.
+     * @param fileService             The file services used for file-related operations.
+     * @param blobReferenceRepository The repositories for counting references to stored content.
+     * @param jdbcTemplate            The template for the statements on the legacy column, which is not mapped.
+     * @param query                   The JpQueryUtil used for querying data.
+     * @param mock                    The MockDataFactory used for creating mock data.
+     */
+    public LegacyContentMigrationFeatureTest(
+            LegacyContentMigration migration,
+            FileService fileService,
+            BlobReferenceRepository blobReferenceRepository,
+            JdbcTemplate jdbcTemplate,
+            JpQueryUtil query,
+            MockDataFactory mock) {
+        this.migration = migration;
+        this.fileService = fileService;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.query = query;
+        this.mock = mock;
+    }
+
+    /**
+     * Setup method annotated with {@code @Before} to create mock user data and restore the legacy schema before the
+     * test scenario.
+     */
+    @Before("@setupLegacyContentData")
+    public void setUpMockData() {
+        mockUser = mock.createMockUser("LegacyUser", "Mock_password1");
+        mockFolder = mock.createMockFolder(mockUser, "legacy");
+
+        jdbcTemplate.execute("ALTER TABLE files ADD COLUMN IF NOT EXISTS data bytea");
+        jdbcTemplate.execute("ALTER TABLE files ALTER COLUMN blob_key DROP NOT NULL");
+    }
+
+    /**
+     * Cleanup method annotated with {@code @After} to delete the mock user data and drop what remains of the legacy
+     * schema.
+     * Note: Deleting a user will also delete all of that user's folders and files.
+     */
+    @After("@cleanupLegacyContentData")
+    public void cleanUpMockData() {
+        query.deleteUser(mockUser.getUsername());
+        jdbcTemplate.execute("ALTER TABLE files DROP COLUMN IF EXISTS data");
+    }
+
+    /**
+     * Step definition for the scenario where the user has a file whose content is still kept in the database.
+     *
+     * @param fileName    The name of the legacy file.
+     * @param contentType The content type of the legacy file.
+     */
+    @Given("the user has a file named {string} of type {string} whose content is kept in the database")
+    public void theUserHasAFileWhoseContentIsKeptInTheDatabase(String fileName, String contentType) {
+        legacyContent = ("Legacy content " + UUID.randomUUID()).repeat(100).getBytes(StandardCharsets.UTF_8);
+        legacyFileId = jdbcTemplate.queryForObject("SELECT nextval('files_seq')", Long.class);
+
+        jdbcTemplate.update("INSERT INTO files (id, name, content_type, size, codec, uploaded_at, folder_id, data)" +
+                        " VALUES (?, ?, ?, ?, 'IDENTITY', now(), ?, ?)",
+                legacyFileId, fileName, contentType, legacyContent.length, mockFolder.getId(), legacyContent);
+    }
+
+    /**
+     * Step definition for the scenario where the migration runs, as it does when the application starts.
+     *
+     * @throws IOException If the content of a file could not be stored.
+     */
+    @When("the content of files is migrated into the blob store")
+    public void theContentOfFilesIsMigratedIntoTheBlobStore() throws IOException {
+        migration.migrate();
+    }
+
+    /**
+     * Step definition for the scenario where the migrated file should be stored with the codec selected for its
+     * content type, reference its content and be downloaded exactly as it was kept in the database.
+     *
+     * @param codec The name of the codec in which the file is expected to be stored.
+     * @throws IOException If the content of the file could not be read.
+     */
+    @Then("the file should be stored with codec {string} and be downloaded unchanged after the migration")
+    public void theFileShouldBeStoredWithCodecAndBeDownloadedUnchangedAfterTheMigration(String codec)
+            throws IOException {
+        FileMetadata metadata = fileService.fetchFileForDownload(mockUser.getId(), mockFolder.getId(), legacyFileId);
+        assertNotNull(metadata.blobKey());
+        assertEquals(ContentCodec.valueOf(codec), metadata.codec());
+        assertNotNull(metadata.storedSize());
+        assertTrue(blobReferenceRepository.findById(metadata.blobKey()).orElseThrow().getRefCount() >= 1);
+
+        try (InputStream content = fileService.loadFileContent(metadata).getInputStream()) {
+            assertArrayEquals(legacyContent, content.readAllBytes());
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the legacy column should have been dropped and the blob key of files
+     * should be mandatory again.
+     */
+    @Then("the content should no longer be kept in the database")
+    public void theContentShouldNoLongerBeKeptInTheDatabase() {
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.columns c" +
+                " WHERE c.table_schema = current_schema() AND c.table_name = 'files' AND c.column_name = 'data'",
+                Integer.class));
+        assertEquals("NO", jdbcTemplate.queryForObject("SELECT c.is_nullable FROM information_schema.columns c" +
+                " WHERE c.table_schema = current_schema() AND c.table_name = 'files' AND c.column_name = 'blob_key'",
+                String.class));
+    }
+
+}
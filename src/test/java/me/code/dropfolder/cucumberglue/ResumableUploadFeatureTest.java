@@ -0,0 +1,427 @@
+package me.code.dropfolder.cucumberglue;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import me.code.dropfolder.dtos.CreateUploadSessionDto;
+import me.code.dropfolder.dtos.SuccessDto;
+import me.code.dropfolder.dtos.details.UploadSessionSuccessDetail;
+import me.code.dropfolder.exceptions.types.CouldNotFindUploadSessionException;
+import me.code.dropfolder.exceptions.types.FileUploadFailureException;
+import me.code.dropfolder.models.File;
+import me.code.dropfolder.models.Folder;
+import me.code.dropfolder.models.UploadSession;
+import me.code.dropfolder.models.User;
+import me.code.dropfolder.repositories.BlobReferenceRepository;
+import me.code.dropfolder.services.BlobReclaimer;
+import me.code.dropfolder.services.BlobService;
+import me.code.dropfolder.services.UploadSessionService;
+import me.code.dropfolder.storage.BlobStore;
+import me.code.dropfolder.storage.ContentCodec;
+import me.code.dropfolder.storage.UploadStagingArea;
+import me.code.dropfolder.utils.JpQueryUtil;
+import me.code.dropfolder.utils.MockDataFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Cucumber feature test class for resumable upload scenarios.
+ * Defines step definitions using Cucumber annotations to test uploading a file in chunks with mock data.
+ *
+ * <p>
+ * The class sets up and cleans up mock user data before and after test scenarios and defines step definitions
+ * for successful and unsuccessful resumable upload scenarios.
+ * </p>
+ */
+public class ResumableUploadFeatureTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final UploadSessionService uploadSessionService;
+    private final UploadStagingArea stagingArea;
+    private final BlobService blobService;
+    private final BlobStore blobStore;
+    private final BlobReclaimer blobReclaimer;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final JpQueryUtil query;
+    private final MockDataFactory mock;
+    private final long maxFileSize;
+
+    private User mockUser;
+    private Folder mockFolder;
+    private String fileName;
+    private byte[] content;
+    private String sessionId;
+    private List<CompletableFuture<SuccessDto>> completions;
+
+    /**
+     * Constructor for the ResumableUploadFeatureTest class.
+     *
+     * @param uploadSessionService    The upload session services used for resumable uploads.
+     * @param stagingArea             The staging area in which the chunks of uploads are assembled.
+     * @param blobService             The blob services, spied on to simulate failures while storing content.
+     * @param blobStore               The storage engine holding the content of files, spied on to simulate failures
+     *                                while committing content.
+     * @param blobReclaimer           The background job reclaiming content which is no longer referenced.
+     * @param blobReferenceRepository The repository counting the references to stored content.
+     * @param query                   The JpQueryUtil used for querying data.
+     * @param mock                    The MockDataFactory used for creating mock data.
+     * @param maxFileSize             The maximum size of an uploaded file.
+     */
+    public ResumableUploadFeatureTest(
+            UploadSessionService uploadSessionService,
+            UploadStagingArea stagingArea,
+            BlobService blobService,
+            BlobStore blobStore,
+            BlobReclaimer blobReclaimer,
+            BlobReferenceRepository blobReferenceRepository,
+            JpQueryUtil query,
+            MockDataFactory mock,
+            @Value("${dropfolder.upload.max-file-size}") DataSize maxFileSize) {
+        this.uploadSessionService = uploadSessionService;
+        this.stagingArea = stagingArea;
+        this.blobService = blobService;
+        this.blobStore = blobStore;
+        this.blobReclaimer = blobReclaimer;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.query = query;
+        this.mock = mock;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    /**
+     * Setup method annotated with {@code @Before} to create mock data before the test scenario.
+     */
+    @Before("@setupResumableUploadData")
+    public void setupMockData() {
+        mockUser = mock.createMockUser("mockUploader", "Mockpassword");
+        mockFolder = mock.createMockFolder(mockUser, "mock_folder");
+    }
+
+    /**
+     * Cleanup method annotated with {@code @After} to delete the mock data after the test scenario.
+     */
+    @After("@cleanupResumableUploadData")
+    public void cleanupMockData() {
+        query.deleteUser(mockUser.getUsername());
+    }
+
+    /**
+     * Step definition for the scenario where the user starts a resumable upload into their folder.
+     *
+     * @param fileName The name of the file to be uploaded.
+     * @param size     The size of the file to be uploaded.
+     */
+    @Given("the user has started a resumable upload of a file named {string} with a size of {int} bytes")
+    public void theUserHasStartedAResumableUpload(String fileName, int size) {
+        theUserHasStartedAResumableUploadOfType(fileName, "application/octet-stream", size);
+    }
+
+    /**
+     * Step definition for the scenario where the user starts a resumable upload of a file of a given content type,
+     * which determines whether the content is compressed in storage. The content is random, so no other file shares it.
+     *
+     * @param fileName    The name of the file to be uploaded.
+     * @param contentType The content type of the file to be uploaded.
+     * @param size        The size of the file to be uploaded.
+     */
+    @Given("the user has started a resumable upload of a file named {string} of type {string} with a size of {int} bytes")
+    public void theUserHasStartedAResumableUploadOfType(String fileName, String contentType, int size) {
+        this.fileName = fileName;
+        this.content = new byte[size];
+        new Random().nextBytes(content);
+
+        SuccessDto result = uploadSessionService.createSession(mockUser.getId(),
+                new CreateUploadSessionDto(mockFolder.getId(), fileName, contentType, size, CHUNK_SIZE));
+
+        assertEquals(HttpStatus.CREATED, result.getStatus());
+        sessionId = ((UploadSessionSuccessDetail) result.getSuccessDetails()).getSessionId();
+    }
+
+    /**
+     * Step definition for the scenario where a resumable upload of a file larger than the maximum file size is
+     * rejected before any content is sent, while a file of exactly the maximum size is accepted.
+     */
+    @Then("starting a resumable upload of a file larger than the maximum file size should fail")
+    public void startingAResumableUploadOfAFileLargerThanTheMaximumFileSizeShouldFail() {
+        assertThrows(FileUploadFailureException.class, () -> uploadSessionService.createSession(mockUser.getId(),
+                new CreateUploadSessionDto(mockFolder.getId(), "too_large.bin", null, maxFileSize + 1, CHUNK_SIZE)));
+
+        SuccessDto result = uploadSessionService.createSession(mockUser.getId(),
+                new CreateUploadSessionDto(mockFolder.getId(), "largest.bin", null, maxFileSize, CHUNK_SIZE));
+        assertEquals(HttpStatus.CREATED, result.getStatus());
+    }
+
+    /**
+     * Step definition for the scenario where the user uploads every chunk of the file.
+     */
+    @When("the user uploads every chunk of the file")
+    public void theUserUploadsEveryChunkOfTheFile() {
+        theUserUploadsEveryChunkOfTheFileExceptChunk(-1);
+    }
+
+    /**
+     * Step definition for the scenario where the user uploads every chunk of the file except one,
+     * in reverse order to show that chunks may arrive in any order.
+     *
+     * @param skippedChunk The index of the chunk which is not uploaded.
+     */
+    @When("the user uploads every chunk of the file except chunk {int}")
+    public void theUserUploadsEveryChunkOfTheFileExceptChunk(int skippedChunk) {
+        UploadSession session = query.loadUploadSessionById(sessionId);
+
+        for (int chunkIndex = session.getChunkCount() - 1; chunkIndex >= 0; chunkIndex--) {
+            if (chunkIndex == skippedChunk) {
+                continue;
+            }
+            int offset = (int) session.getChunkOffset(chunkIndex);
+            int length = (int) session.getChunkLength(chunkIndex);
+
+            SuccessDto result = uploadSessionService.receiveChunk(mockUser.getId(), sessionId, chunkIndex, offset,
+                    new ReadyServletInputStream(content, offset, length)).join();
+            assertEquals(HttpStatus.OK, result.getStatus());
+        }
+    }
+
+    /**
+     * Step definition for the scenario where the completed upload results in a file in the user's folder.
+     */
+    @Then("the upload should be completed and the file should be stored in the users folder")
+    public void theUploadShouldBeCompletedAndTheFileShouldBeStored() {
+        SuccessDto result = uploadSessionService.completeSession(mockUser.getId(), sessionId);
+        File uploadedFile = query.loadFileByFolderAndName(mockFolder, fileName);
+
+        assertEquals(HttpStatus.CREATED, result.getStatus());
+        assertEquals(content.length, uploadedFile.getSize());
+    }
+
+    /**
+     * Step definition for the scenario where the upload session reports a chunk as missing.
+     *
+     * @param chunkIndex The index of the missing chunk.
+     */
+    @Then("the upload should report chunk {int} as missing")
+    public void theUploadShouldReportChunkAsMissing(int chunkIndex) {
+        UploadSession session = query.loadUploadSessionById(sessionId);
+
+        assertFalse(session.isComplete());
+        assertFalse(session.getReceivedChunks().contains(chunkIndex));
+        assertEquals(session.getChunkCount() - 1, session.getReceivedChunks().size());
+    }
+
+    /**
+     * Step definition for the scenario where completing an incomplete upload fails.
+     */
+    @Then("completing the upload should fail")
+    public void completingTheUploadShouldFail() {
+        assertThrows(FileUploadFailureException.class,
+                () -> uploadSessionService.completeSession(mockUser.getId(), sessionId));
+    }
+
+    /**
+     * Step definition for the scenario where storing the content of the next file fails once its reference has been
+     * acquired, such as when the database connection is lost, which rolls back the transaction saving the file.
+     */
+    @Given("storing the content of the next file fails")
+    public void storingTheContentOfTheNextFileFails() {
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            throw new UncheckedIOException(new IOException("Simulated storage failure"));
+        }).doCallRealMethod().when(blobService).store(any());
+    }
+
+    /**
+     * Step definition for the scenario where committing the content of the next file to the blob store fails,
+     * such as when the disk is full, before the transaction saving the file commits.
+     *
+     * @throws IOException Never, since committing the content is only stubbed.
+     */
+    @Given("committing the content of the next file to the blob store fails")
+    public void committingTheContentOfTheNextFileToTheBlobStoreFails() throws IOException {
+        doThrow(new IOException("No space left on device")).doCallRealMethod().when(blobStore).commit(any());
+    }
+
+    /**
+     * Step definition for the scenario where completing an upload fails while the upload is kept intact,
+     * with every chunk still reported as received and the assembled content still staged. Since the transaction
+     * saving the file was rolled back, the content must not be referenced, so any of it which was committed to the
+     * blob store is reclaimed.
+     */
+    @Then("completing the upload should fail and the upload should remain complete")
+    public void completingTheUploadShouldFailAndTheUploadShouldRemainComplete() throws NoSuchAlgorithmException {
+        completingTheUploadShouldFail();
+
+        UploadSession session = query.loadUploadSessionById(sessionId);
+        assertTrue(session.isComplete());
+        assertTrue(Files.isRegularFile(stagingArea.resolve(sessionId)));
+        assertFalse(query.folderHasExistingFileByName(mockFolder, fileName));
+
+        String key = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(0, blobReferenceRepository.findById(key).orElseThrow().getRefCount());
+
+        blobReclaimer.reclaimUnreferencedBlobs();
+        assertFalse(blobReferenceRepository.existsById(key));
+        for (ContentCodec codec : ContentCodec.values()) {
+            assertThrows(IOException.class, () -> blobStore.load(key, codec));
+        }
+    }
+
+    /**
+     * Step definition for the scenario where completing the upload is retried after a failure,
+     * which creates the file and removes the staged content.
+     */
+    @Then("retrying to complete the upload should store the file in the users folder")
+    public void retryingToCompleteTheUploadShouldStoreTheFile() {
+        theUploadShouldBeCompletedAndTheFileShouldBeStored();
+
+        assertFalse(Files.exists(stagingArea.resolve(sessionId)));
+    }
+
+    /**
+     * Step definition for the scenario where the user completes the upload several times at once, such as when
+     * a client retries a completion whose response was lost.
+     *
+     * @param count The number of concurrent completions.
+     * @throws InterruptedException If the step is interrupted while waiting for the completions.
+     */
+    @When("the user completes the upload {int} times at once")
+    public void theUserCompletesTheUploadTimesAtOnce(int count) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        completions = new ArrayList<>();
+
+        try {
+            for (int index = 0; index < count; index++) {
+                completions.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(exception);
+                    }
+                    return uploadSessionService.completeSession(mockUser.getId(), sessionId);
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(completions.toArray(CompletableFuture[]::new))
+                    .exceptionally(failure -> null)
+                    .join();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Step definition for the scenario where only one of the completions creates the file, so no second file with
+     * a suffixed name is created.
+     */
+    @Then("exactly one completion should store the file in the users folder")
+    public void exactlyOneCompletionShouldStoreTheFileInTheUsersFolder() {
+        List<SuccessDto> results = completions.stream()
+                .filter(completion -> !completion.isCompletedExceptionally())
+                .map(CompletableFuture::join)
+                .toList();
+
+        assertEquals(1, results.size());
+        assertEquals(HttpStatus.CREATED, results.get(0).getStatus());
+        assertEquals(content.length, query.loadFileByFolderAndName(mockFolder, fileName).getSize());
+        assertEquals(1, query.loadFileMetadataPage(mockFolder.getId(), 0, 10).size());
+    }
+
+    /**
+     * Step definition for the scenario where every completion but the one creating the file finds no upload to
+     * complete, since it is either already being completed or already removed.
+     */
+    @Then("every other completion should find no upload to complete")
+    public void everyOtherCompletionShouldFindNoUploadToComplete() {
+        for (CompletableFuture<SuccessDto> completion : completions) {
+            if (completion.isCompletedExceptionally()) {
+                CompletionException failure = assertThrows(CompletionException.class, completion::join);
+                assertInstanceOf(CouldNotFindUploadSessionException.class, failure.getCause());
+            }
+        }
+        assertFalse(Files.exists(stagingArea.resolve(sessionId)));
+    }
+
+    /**
+     * Step definition for the scenario where the upload is completed again after it has been completed.
+     */
+    @Then("completing the upload again should find no upload to complete")
+    public void completingTheUploadAgainShouldFindNoUploadToComplete() {
+        assertThrows(CouldNotFindUploadSessionException.class,
+                () -> uploadSessionService.completeSession(mockUser.getId(), sessionId));
+        assertEquals(1, query.loadFileMetadataPage(mockFolder.getId(), 0, 10).size());
+    }
+
+    /**
+     * ServletInputStream standing in for the body of an asynchronously processed request, whose content is
+     * entirely available up front. The read listener is notified as soon as it is registered, as the servlet
+     * container does once the body can be read without blocking.
+     */
+    private static class ReadyServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream content;
+
+        private ReadyServletInputStream(byte[] content, int offset, int length) {
+            this.content = new ByteArrayInputStream(content, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return content.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException exception) {
+                readListener.onError(exception);
+            }
+        }
+
+        @Override
+        public int read() {
+            return content.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return content.read(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package me.code.dropfolder.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link VerifiedTokenCache}, covering the expiry of entries, the eviction of the least recently
+ * used entries and concurrent access.
+ */
+class VerifiedTokenCacheTest {
+
+    private static final Duration LONG_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    /**
+     * Cached claims are returned for their token, and nothing is returned for a token which was never cached.
+     */
+    @Test
+    void returnsCachedClaims() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(LONG_TIME_TO_LIVE, 10);
+        Claims claims = createClaims("1");
+
+        cache.put("token", claims);
+
+        assertSame(claims, cache.get("token"));
+        assertNull(cache.get("other_token"));
+    }
+
+    /**
+     * Claims are no longer returned once their time to live has passed.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for the entry to expire.
+     */
+    @Test
+    void expiresClaimsAfterTheirTimeToLive() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(Duration.ofMillis(50), 10);
+        cache.put("token", createClaims("1"));
+
+        assertNotNull(cache.get("token"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("token"));
+    }
+
+    /**
+     * Once the cache is full, the least recently used entry is evicted rather than the least recently added one.
+     */
+    @Test
+    void evictsTheLeastRecentlyUsedClaims() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(LONG_TIME_TO_LIVE, 2);
+        cache.put("first", createClaims("1"));
+        cache.put("second", createClaims("2"));
+
+        assertNotNull(cache.get("first"));
+        cache.put("third", createClaims("3"));
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+    }
+
+    /**
+     * Concurrent reads and writes, which reorder the entries of the cache even when only reading, leave the cache
+     * consistent and bounded.
+     *
+     * @throws Exception If a task fails or the tasks do not finish in time.
+     */
+    @Test
+    void staysConsistentUnderConcurrentAccess() throws Exception {
+        int maxSize = 100;
+        VerifiedTokenCache cache = new VerifiedTokenCache(LONG_TIME_TO_LIVE, maxSize);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int threadIndex = thread;
+                tasks.add(executor.submit(() -> {
+                    for (int operation = 0; operation < 10_000; operation++) {
+                        String token = "token-" + threadIndex + "-" + (operation % 500);
+                        cache.put(token, createClaims(token));
+                        cache.get("token-" + ((threadIndex + 1) % 8) + "-" + (operation % 500));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int index = 0; index < maxSize; index++) {
+            cache.put("fresh-" + index, createClaims(Integer.toString(index)));
+        }
+        for (int index = 0; index < maxSize; index++) {
+            assertEquals(Integer.toString(index), cache.get("fresh-" + index).getSubject());
+        }
+        assertNull(cache.get("token-0-499"));
+    }
+
+    /**
+     * Creates the claims of a token identifying the given subject.
+     *
+     * @param subject The subject of the token.
+     * @return The claims of the token.
+     */
+    private static Claims createClaims(String subject) {
+        return Jwts.claims().setSubject(subject);
+    }
+}
@@ -16,6 +16,96 @@ Feature: File Upload
       | mock.jpg  | my_folder4 |
       | mock.png  | my_folder5 |
 
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Successful raw file upload
+    Given the user has a folder with name "<foldername>"
+    When the user uploads the raw content of a file with name "<filename>" into their folder
+    Then the file should be uploaded successfully in the users folder
+
+    Examples:
+      | filename  | foldername |
+      | mock.txt  | my_folder1 |
+      | mock.png  | my_folder2 |
+
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Unsuccessful raw file upload (file too large)
+    Given the user has a folder with name "<foldername>"
+    Then a raw upload exceeding the maximum file size with a <length> length should fail
+
+    Examples:
+      | length     | foldername |
+      | declared   | my_folder1 |
+      | undeclared | my_folder2 |
+
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Successful file upload compressed at rest
+    Given the user has a folder with name "<foldername>"
+    When the user uploads the raw content of a file with name "<filename>" and content type "<contenttype>" into their folder
+    Then the file should be stored with codec "<codec>" and be downloaded unchanged
+
+    Examples:
+      | filename | foldername | contenttype | codec    |
+      | mock.txt | my_folder1 | text/plain  | GZIP     |
+      | mock.png | my_folder2 | image/png   | IDENTITY |
+
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Successful batch file upload
+    Given the user has a folder with name "<foldername>"
+    When the user uploads the files named "<filenames>" into their folder in one batch
+    Then every file should be uploaded successfully under the names "<savednames>"
+
+    Examples:
+      | filenames                                     | savednames                                    | foldername |
+      | mock.txt,mock.docx,mock.pdf,mock.jpg,mock.png | mock.txt,mock.docx,mock.pdf,mock.jpg,mock.png | my_folder1 |
+      | mock.txt,mock.txt,mock.png                    | mock.txt,mock_2.txt,mock.png                  | my_folder2 |
+
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Successful file upload under a unique name
+    Given the user has a folder with name "<foldername>"
+    And the folder already contains files named "<existingnames>"
+    When the user uploads a file named "<filename>" into their folder
+    Then the file should be saved under the name "<savedname>"
+
+    Examples:
+      | existingnames                       | filename         | savedname          | foldername |
+      | mock_3.txt                          | mock.txt         | mock.txt           | my_folder1 |
+      | mock.txt,mock_3.txt                 | mock.txt         | mock_4.txt         | my_folder2 |
+      | mock.txt,mock_2.bin,mock_x.txt      | mock.txt         | mock_2.txt         | my_folder3 |
+      | my(file)+[1].txt,my(file)+[1]_2.txt | my(file)+[1].txt | my(file)+[1]_3.txt | my_folder4 |
+      | a.b*c.txt,a_7.bbc.txt               | a.b*c.txt        | a_2.b*c.txt        | my_folder5 |
+      | mock,mock_2                         | mock             | mock_3             | my_folder6 |
+      | .env,.env_2                         | .env             | .env_3             | my_folder7 |
+
+  @setupUploadData
+    @cleanupUploadData
+  Scenario Outline: Successful file upload while a file of the same name is in the trash
+    Given the user has a folder with name "<foldername>"
+    And the folder already contains files named "<filename>"
+    And the user has moved the file named "<filename>" to the trash
+    When the user uploads a file named "<filename>" into their folder
+    Then the file should be saved under the name "<savedname>"
+    And the trashed file should be restored under the name "<filename>"
+
+    Examples:
+      | filename | savedname  | foldername |
+      | mock.txt | mock_2.txt | my_folder1 |
+
+  Scenario Outline: Saving under a unique name while the name is taken concurrently
+    Given a save which violates the constraint "<constraint>" the first <conflicts> times
+    Then the save should <outcome> after <attempts> attempts
+
+    Examples:
+      | constraint              | conflicts | outcome | attempts |
+      | uk_files_folder_id_name | 1         | succeed | 2        |
+      | uk_folders_user_id_name | 4         | succeed | 5        |
+      | uk_files_folder_id_name | 5         | fail    | 5        |
+      | uk_users_username       | 1         | fail    | 1        |
+
   @setupUploadData
     @cleanupUploadData
   Scenario Outline: Unsuccessful file upload (user does not own folder)
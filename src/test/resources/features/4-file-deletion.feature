@@ -27,6 +27,17 @@ Feature: File Deletion
       | filename | foldername |
       | mock.txt | my_folder1 |
 
+  @setupDeletionData
+    @cleanupDeletionData
+  Scenario Outline: Unsuccessful file access (the file belongs to another user or folder)
+    Given the user owns a folder containing a file named "<filename>"
+    Then access to the file named "<filename>" should be rejected for another user
+    And access to the file named "<filename>" should be rejected through another folder of the user
+
+    Examples:
+      | filename |
+      | mock.txt |
+
   @setupDeletionData
     @cleanupDeletionData
   Scenario Outline: Unsuccessful file deletion (the file does not exist)
@@ -36,4 +47,39 @@ Feature: File Deletion
 
     Examples:
       | invalid_file_id | foldername |
-      | -1              | my_folder1 |
\ No newline at end of file
+      | -1              | my_folder1 |
+
+  @setupDeletionData
+    @cleanupDeletionData
+  Scenario Outline: Successful file restore from the trash
+    Given the user owns a folder containing a file named "<filename>"
+    When the user moves the file with name "<filename>" to the trash
+    Then the file should be restored when the user restores it from the trash
+
+    Examples:
+      | filename |
+      | mock.txt |
+
+  @setupDeletionData
+    @cleanupDeletionData
+  Scenario Outline: Batch file deletion
+    Given the user owns a folder containing the files named "<filenames>"
+    When the user deletes those files along with the file with id "<invalid_file_id>" in one batch
+    Then only the files in the folder should be deleted
+
+    Examples:
+      | filenames                                     | invalid_file_id |
+      | mock.txt,mock.docx,mock.pdf,mock.jpg,mock.png | -1              |
+
+  @setupDeletionData
+    @cleanupDeletionData
+  Scenario Outline: Shared content is kept until its last file is deleted
+    Given the user owns a folder containing two files named "<filename>" with identical content
+    When the user permanently deletes the first of those files
+    Then the content should still be stored for the remaining file
+    When the user permanently deletes the second of those files
+    Then the content should be reclaimed from the blob store
+
+    Examples:
+      | filename   |
+      | shared.bin |
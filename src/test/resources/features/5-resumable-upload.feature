@@ -0,0 +1,76 @@
+Feature: Resumable File Upload
+  As a user, I want to be able to upload a file in chunks, so that an interrupted upload can be resumed
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario Outline: Successful resumable upload
+    Given the user has started a resumable upload of a file named "<filename>" with a size of <size> bytes
+    When the user uploads every chunk of the file
+    Then the upload should be completed and the file should be stored in the users folder
+
+    Examples:
+      | filename   | size   |
+      | empty.bin  | 0      |
+      | small.bin  | 1000   |
+      | large.bin  | 200000 |
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario Outline: Unsuccessful resumable upload (missing chunk)
+    Given the user has started a resumable upload of a file named "<filename>" with a size of <size> bytes
+    When the user uploads every chunk of the file except chunk <chunk>
+    Then the upload should report chunk <chunk> as missing
+    And completing the upload should fail
+
+    Examples:
+      | filename  | size   | chunk |
+      | large.bin | 200000 | 0     |
+      | large.bin | 200000 | 3     |
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario: Unsuccessful resumable upload (file too large)
+    Then starting a resumable upload of a file larger than the maximum file size should fail
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario Outline: Retrying a resumable upload after completing it failed
+    Given the user has started a resumable upload of a file named "<filename>" of type "<type>" with a size of <size> bytes
+    And the user uploads every chunk of the file
+    And storing the content of the next file fails
+    Then completing the upload should fail and the upload should remain complete
+    And retrying to complete the upload should store the file in the users folder
+
+    Examples:
+      | filename  | type                     | size   |
+      | large.txt | text/plain               | 200000 |
+      | large.bin | application/octet-stream | 200000 |
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario Outline: Retrying a resumable upload after committing its content failed
+    Given the user has started a resumable upload of a file named "<filename>" of type "<type>" with a size of <size> bytes
+    And the user uploads every chunk of the file
+    And committing the content of the next file to the blob store fails
+    Then completing the upload should fail and the upload should remain complete
+    And retrying to complete the upload should store the file in the users folder
+
+    Examples:
+      | filename  | type                     | size   |
+      | large.txt | text/plain               | 200000 |
+      | large.bin | application/octet-stream | 200000 |
+
+  @setupResumableUploadData
+    @cleanupResumableUploadData
+  Scenario Outline: Completing a resumable upload more than once
+    Given the user has started a resumable upload of a file named "<filename>" with a size of <size> bytes
+    And the user uploads every chunk of the file
+    When the user completes the upload <count> times at once
+    Then exactly one completion should store the file in the users folder
+    And every other completion should find no upload to complete
+    And completing the upload again should find no upload to complete
+
+    Examples:
+      | filename  | size   | count |
+      | large.bin | 200000 | 2     |
+      | large.bin | 200000 | 8     |
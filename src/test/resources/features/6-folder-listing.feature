@@ -0,0 +1,42 @@
+Feature: Folder Listing
+  As a user, I want to be able to list the files in my folders, one page at a time
+
+  @setupListingData
+    @cleanupListingData
+  Scenario Outline: Successful folder listing
+    Given the user owns a folder containing the mock files
+    When the user lists the folder with a page size of <limit>
+    Then every file should be listed exactly once in <pages> pages
+
+    Examples:
+      | limit | pages |
+      | 1     | 5     |
+      | 2     | 3     |
+      | 5     | 1     |
+      | 100   | 1     |
+
+  @setupListingData
+    @cleanupListingData
+  Scenario: Unsuccessful folder listing (user does not own the folder)
+    Given the user owns a folder containing the mock files
+    Then listing the folder should fail for another user
+
+  @setupListingData
+    @cleanupListingData
+  Scenario: Successful folder archive
+    Given the user owns a folder containing the mock files
+    When the user downloads the folder as an archive
+    Then the archive should contain every file exactly once
+
+  @setupListingData
+    @cleanupListingData
+  Scenario: Unsuccessful folder archive (user does not own the folder)
+    Given the user owns a folder containing the mock files
+    Then archiving the folder should fail for another user
+
+  @setupListingData
+    @cleanupListingData
+  Scenario: Successful folder deletion
+    Given the user owns a folder containing the mock files
+    When the user deletes the folder
+    Then the folder and its files should no longer exist
@@ -0,0 +1,143 @@
+Feature: File Download
+  As a user, I want my downloads to be cached, so that unchanged files are not transferred again
+
+  Scenario Outline: ETag of a download
+    Given a file of type "<type>" stored with codec "<codec>"
+    When the file is downloaded with the Accept-Encoding header "<accept>"
+    Then the download should be tagged with the ETag <etag>
+    And downloading the file again with that ETag in If-None-Match should be answered with 304 Not Modified
+    And downloading the file again with the ETag <other_etag> in If-None-Match should not be answered with 304 Not Modified
+
+    Examples:
+      | type       | codec    | accept   | etag              | other_etag        |
+      | text/plain | IDENTITY | gzip     | "W/\"{key}\""     | "\"{key}-gzip\""  |
+      | text/plain | IDENTITY | identity | "\"{key}\""       | "\"{key}-gzip\""  |
+      | image/png  | IDENTITY | gzip     | "\"{key}\""       | "\"{key}-gzip\""  |
+      | text/plain | GZIP     | gzip     | "\"{key}-gzip\""  | "\"{key}\""       |
+      | text/plain | GZIP     | identity | "\"{key}\""       | "\"{key}-gzip\""  |
+
+  Scenario Outline: Content encoding negotiation for content compressed at rest
+    Given a file of type "text/plain" stored with codec "GZIP"
+    When the file is downloaded with the Accept-Encoding header "<accept>"
+    Then the content should be sent with the encoding "<encoding>"
+
+    Examples:
+      | accept            | encoding |
+      | gzip              | GZIP     |
+      | GZIP              | GZIP     |
+      | gzip;q=0.5        | GZIP     |
+      | gzip;q=0          | IDENTITY |
+      | gzip;q=invalid    | IDENTITY |
+      | *                 | GZIP     |
+      | *;q=0             | IDENTITY |
+      | *, gzip;q=0       | IDENTITY |
+      | gzip;q=0, *       | IDENTITY |
+      | identity          | IDENTITY |
+      | deflate, br       | IDENTITY |
+      |                   | IDENTITY |
+
+  Scenario Outline: Compression in transfer for content stored verbatim
+    Given a file of type "<type>" stored with codec "IDENTITY"
+    When the file is downloaded with the Accept-Encoding header "<accept>"
+    Then the content should be sent with the encoding "IDENTITY"
+    And the content should be compressed by the servlet container: <compressed>
+
+    Examples:
+      | type                      | accept   | compressed |
+      | text/plain                | gzip     | true       |
+      | text/plain;charset=UTF-8  | gzip     | true       |
+      | application/json          | *        | true       |
+      | text/plain                | gzip;q=0 | false      |
+      | text/plain                | identity | false      |
+      | text/x-log                | gzip     | false      |
+      | application/vnd.api+json  | gzip     | false      |
+      | image/png                 | gzip     | false      |
+
+  Scenario: Content types compressed at rest and in transfer
+    Then the servlet container should compress exactly the content types compressed at rest
+    And a compressible content type containing a wildcard should be rejected
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario: Download of a whole stored file
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded
+    Then the response should be 200 OK with the whole file
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario Outline: Download of a single range
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded with the Range header "<range>"
+    Then the response should be 206 Partial Content with the Content-Range "<content_range>" holding bytes <first> to <last> of the file
+
+    Examples:
+      | range              | content_range            | first | last  |
+      | bytes=0-99         | bytes 0-99/100000        | 0     | 99    |
+      | bytes=500-500      | bytes 500-500/100000     | 500   | 500   |
+      | bytes=99000-       | bytes 99000-99999/100000 | 99000 | 99999 |
+      | bytes=-500         | bytes 99500-99999/100000 | 99500 | 99999 |
+      | bytes=99990-200000 | bytes 99990-99999/100000 | 99990 | 99999 |
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario Outline: Download of multiple ranges
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded with the Range header "<range>"
+    Then the response should be 206 Partial Content with a part holding each of the ranges "<ranges>" of the file
+
+    Examples:
+      | range                          | ranges                         |
+      | bytes=0-9,500-509              | 0-9,500-509                    |
+      | bytes=0-0,50000-59999,-10      | 0-0,50000-59999,99990-99999    |
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario Outline: Download of a range of an unchanged file
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded with the Range header "bytes=100-199" and the If-Range header "<if_range>"
+    Then the response should be 206 Partial Content with the Content-Range "bytes 100-199/100000" holding bytes 100 to 199 of the file
+
+    Examples:
+      | if_range        |
+      | {etag}          |
+      | {last_modified} |
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario Outline: Download of a range of a changed file
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded with the Range header "bytes=100-199" and the If-Range header "<if_range>"
+    Then the response should be 200 OK with the whole file
+
+    Examples:
+      | if_range     |
+      | W/{etag}     |
+      | \"outdated\" |
+      | {earlier}    |
+      | not a date   |
+
+  @setupDownloadData
+    @cleanupDownloadData
+  Scenario Outline: Download of an unsatisfiable range
+    Given the user has stored a file of 100000 bytes
+    When the stored file is downloaded with the Range header "<range>"
+    Then the response should be 416 Range Not Satisfiable with the Content-Range "bytes */100000"
+
+    Examples:
+      | range                |
+      | bytes=100000-        |
+      | bytes=200000-300000  |
+
+  @cleanupDownloadData
+  Scenario: Download handed over to sendfile
+    Given a file of 100000 bytes whose content is kept on disk
+    When the file is downloaded from a servlet container supporting sendfile
+    Then the whole file should be handed over to sendfile
+
+  @cleanupDownloadData
+  Scenario: Download sent without blocking
+    Given a file of 100000 bytes whose content is kept on disk
+    When the file is downloaded from a servlet container without sendfile support
+    Then the file should only be sent while the client is ready to accept it
+    And the whole file should have been sent once the client has accepted it
@@ -0,0 +1,10 @@
+Feature: Concurrent Transfers
+  As a user, I want my transfers to succeed while many other transfers are in progress
+
+  @setupTransferData
+    @cleanupTransferData
+  Scenario: Successful uploads outnumbering the database connections
+    Given the user has a folder to upload into
+    When more uploads than the database has connections are sending their content at once
+    Then the folder should still be listed while those uploads are in progress
+    And every upload should succeed once its content has been sent
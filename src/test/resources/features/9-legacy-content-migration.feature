@@ -0,0 +1,15 @@
+Feature: Legacy Content Migration
+  As a user, I want the files I uploaded before their content was moved out of the database to remain downloadable
+
+  @setupLegacyContentData
+    @cleanupLegacyContentData
+  Scenario Outline: Successful migration of content kept in the database
+    Given the user has a file named "<filename>" of type "<contentType>" whose content is kept in the database
+    When the content of files is migrated into the blob store
+    Then the file should be stored with codec "<codec>" and be downloaded unchanged after the migration
+    And the content should no longer be kept in the database
+
+    Examples:
+      | filename   | contentType | codec    |
+      | notes.txt  | text/plain  | GZIP     |
+      | image.png  | image/png   | IDENTITY |